@@ -42,12 +42,11 @@ public class EvilHangmanGame implements IEvilHangmanGame {
 
             this.wordSet = new HashSet<>();
             this.wordLength = wordLength;
-            Scanner scanner = new Scanner(dictionary);
-            while (scanner.hasNext()) {
-                String word = scanner.next();
-                if (word.matches("^[a-zA-Z]+$") && word.length() == wordLength) {
-
-                    wordSet.add(word.toLowerCase());
+            //WordReader only returns words made of letters, already in lower case
+            try (WordReader reader = new WordReader(dictionary)) {
+                String word;
+                while ((word = reader.next(wordLength)) != null) {
+                    wordSet.add(word);
                 }
             }
             StringBuilder builder = new StringBuilder();
@@ -0,0 +1,110 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+* Runs the Image transforms on a ForkJoinPool by splitting the image into bands of whole rows.
+* The results are the same as the sequential transforms, pixel for pixel:
+*  - invert and grayscale change each pixel on its own, and blur each row on its own, so the
+*    bands never touch each other's pixels.
+*  - emboss reads the pixel up and to the left, so the top row of a band needs the last row of
+*    the band above as it was before that band was embossed. Those halo rows are copied before
+*    any band starts.
+*/
+public class FilterEngine {
+    //Bands smaller than this are not worth a task of their own
+    private static final int MIN_BAND_PIXELS = 1 << 15;
+    //Bands per thread, so a thread that finishes early can take some of another's work
+    private static final int BANDS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+
+    public FilterEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public FilterEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    Image invertImage(Image image) {
+        run(bands(image), image::invertRows);
+        return image;
+    }
+
+    Image grayscaleImage(Image image) {
+        run(bands(image), image::grayscaleRows);
+        return image;
+    }
+
+    Image blurImage(Image image, int n) {
+        run(bands(image), (from, to) -> image.blurRows(n, from, to));
+        return image;
+    }
+
+    Image embossImage(Image image) {
+        int[] starts = bands(image);
+        //halos[b] is the original row above band b
+        int[][] halos = new int[starts.length - 1][];
+        for (int b = 1; b < halos.length; b++) {
+            halos[b] = new int[image.width];
+            System.arraycopy(image.pixels, (starts[b] - 1) * image.width, halos[b], 0, image.width);
+        }
+        pool.invoke(new BandTask(starts, 0, halos.length, (band, from, to) -> image.embossRows(from, to, halos[band])));
+        return image;
+    }
+
+    /*
+    * Returns the first row of each band followed by the image height
+    */
+    private int[] bands(Image image) {
+        long pixels = (long) image.width * image.height;
+        int count = (int) Math.max(1, Math.min(Math.min(image.height, pool.getParallelism() * BANDS_PER_THREAD),
+                pixels / MIN_BAND_PIXELS));
+        int[] starts = new int[count + 1];
+        for (int b = 0; b <= count; b++) {
+            starts[b] = (int) ((long) image.height * b / count);
+        }
+        return starts;
+    }
+
+    private void run(int[] starts, RowFilter filter) {
+        pool.invoke(new BandTask(starts, 0, starts.length - 1, (band, from, to) -> filter.filterRows(from, to)));
+    }
+
+    interface RowFilter {
+        void filterRows(int from, int to);
+    }
+
+    interface BandFilter {
+        void filterBand(int band, int from, int to);
+    }
+
+    /*
+    * Filters bands [first, last), splitting them in half until there is one left
+    */
+    private static class BandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] starts;
+        private final int first;
+        private final int last;
+        private final BandFilter filter;
+
+        BandTask(int[] starts, int first, int last, BandFilter filter) {
+            this.starts = starts;
+            this.first = first;
+            this.last = last;
+            this.filter = filter;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first == 1) {
+                filter.filterBand(first, starts[first], starts[last]);
+                return;
+            }
+            int middle = (first + last) >>> 1;
+            invokeAll(new BandTask(starts, first, middle, filter), new BandTask(starts, middle, last, filter));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/*
+* Quick checks that small images survive being written and read back in every format: random
+* images of odd sizes through P3, P6 and P5, and hand-written files with comments in the
+* header and binary rasters holding bytes that look like whitespace or a comment. Prints every
+* failed check and exits with status 1 if there were any.
+* This class is not used by the passoff program.
+*
+* USAGE: java FormatCheck
+*/
+public class FormatCheck {
+
+    private static final long SEED = 23;
+    //A row wider than the reader's buffer, so it is read partly from the buffer and partly not
+    private static final int[][] SIZES = {{1, 1}, {3, 2}, {2, 3}, {7, 5}, {1, 9}, {25000, 2}};
+
+    private static int failures;
+
+    public static void main(String[] args) throws IOException {
+        for (int[] size : SIZES) {
+            roundTrips(ImageBenchmark.generateImage(size[0], size[1], SEED + size[0] * 31 + size[1]));
+        }
+        readsComments();
+        if (failures > 0) {
+            System.out.println(failures + " checks failed");
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+    }
+
+    /*
+    * P3 and P6 must give back the same image and, written as P3 again, the same file. P5
+    * only holds gray pixels, so it must give back the grayscale image.
+    */
+    static void roundTrips(Image image) throws IOException {
+        String size = image.width + "x" + image.height;
+        File text = tempFile();
+        image.toFile(text);
+        Image read = Image.fromFile(text);
+        check("P3 " + size, image, read);
+
+        File binary = tempFile();
+        read.ID = Image.BINARY_PPM;
+        read.toFile(binary);
+        check("P6 size " + size, binary.length() == header(read).length + 3L * image.width * image.height);
+        Image binaryRead = Image.fromFile(binary);
+        check("P6 ID " + size, Image.BINARY_PPM.equals(binaryRead.ID));
+        binaryRead.ID = image.ID;
+        check("P6 " + size, image, binaryRead);
+        File textAgain = tempFile();
+        binaryRead.toFile(textAgain);
+        check("P3 -> P6 -> P3 " + size, sameFile(text, textAgain));
+
+        Image gray = ImageBenchmark.copy(image).grayscaleImage();
+        gray.ID = Image.BINARY_PGM;
+        gray.toFile(binary);
+        check("P5 size " + size, binary.length() == header(gray).length + (long) image.width * image.height);
+        check("P5 " + size, gray, Image.fromFile(binary));
+    }
+
+    /*
+    * Comments may come before any header value, and the single whitespace byte after the max
+    * color value is the last thing before a binary raster, even when raster bytes are '#',
+    * '\n' or ' '
+    */
+    static void readsComments() throws IOException {
+        int[] samples = {'#', '\n', ' ', 0, 255, '\t', 13, '#', 128};
+        Image expected = new Image();
+        expected.ID = Image.BINARY_PPM;
+        expected.width = 3;
+        expected.height = 1;
+        expected.maxColor = 255;
+        expected.pixels = new int[3];
+        for (int k = 0; k < 3; k++) {
+            expected.pixels[k] = Image.rgb(samples[3 * k], samples[3 * k + 1], samples[3 * k + 2]);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] prefix = "P6\n# made by hand\n3 # width\n1\n#\n255\n".getBytes(StandardCharsets.US_ASCII);
+        bytes.write(prefix, 0, prefix.length);
+        for (int sample : samples) {
+            bytes.write(sample);
+        }
+        check("P6 with comments", expected, read(bytes.toByteArray()));
+
+        Image gray = ImageBenchmark.copy(expected);
+        gray.ID = Image.BINARY_PGM;
+        gray.width = 9;
+        gray.pixels = new int[9];
+        for (int k = 0; k < 9; k++) {
+            gray.pixels[k] = Image.rgb(samples[k], samples[k], samples[k]);
+        }
+        bytes.reset();
+        prefix = "P5 #gray\n9 1 255 ".getBytes(StandardCharsets.US_ASCII);
+        bytes.write(prefix, 0, prefix.length);
+        for (int sample : samples) {
+            bytes.write(sample);
+        }
+        check("P5 with comments", gray, read(bytes.toByteArray()));
+
+        expected.ID = "P3";
+        String text = "P3\n#comment\n3 1\n255\n35 10 32 # the same samples\n0 255 9\n\n13\t35 128\n";
+        check("P3 with comments", expected, read(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    static Image read(byte[] contents) throws IOException {
+        File file = tempFile();
+        Files.write(file.toPath(), contents);
+        return Image.fromFile(file);
+    }
+
+    static byte[] header(Image image) {
+        return (image.ID + "\n" + image.width + " " + image.height + "\n" + image.maxColor + "\n")
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static boolean sameFile(File expected, File actual) throws IOException {
+        return Arrays.equals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+    }
+
+    static File tempFile() throws IOException {
+        File file = File.createTempFile("format", ".ppm");
+        file.deleteOnExit();
+        return file;
+    }
+
+    static void check(String name, Image expected, Image actual) {
+        check(name, expected.ID.equals(actual.ID) && expected.width == actual.width
+                && expected.height == actual.height && expected.maxColor == actual.maxColor
+                && Arrays.equals(expected.pixels, actual.pixels));
+    }
+
+    static void check(String name, boolean passed) {
+        if (!passed) {
+            System.out.println("FAILED: " + name);
+            failures++;
+        }
+    }
+}
@@ -1,26 +1,57 @@
 import java.io.*;
-import java.util.Scanner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
 
 
 public class Image {
+    //Magic numbers of the binary formats; any other ID is read and written as text, like P3
+    static final String BINARY_PPM = "P6";
+    static final String BINARY_PGM = "P5";
+    //Bytes written to the file at a time
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    //The text of every sample value, its digits and a newline, SAMPLE_TEXT_WIDTH bytes apart
+    private static final int SAMPLE_TEXT_WIDTH = 4;
+    private static final byte[] SAMPLE_TEXT = new byte[256 * SAMPLE_TEXT_WIDTH];
+    private static final int[] SAMPLE_TEXT_LENGTHS = new int[256];
+
+    static {
+        for (int value = 0; value < 256; value++) {
+            byte[] text = (value + "\n").getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(text, 0, SAMPLE_TEXT, value * SAMPLE_TEXT_WIDTH, text.length);
+            SAMPLE_TEXT_LENGTHS[value] = text.length;
+        }
+    }
+
     int height;
     int width;
     int maxColor;
     String ID;
-    Pixel[][] pixels;
+    //One int per pixel, 0xRRGGBB, row by row: pixel (i, j) is pixels[i * width + j]
+    int[] pixels;
 
     /*
-    * fromFile takes a file and creates a 2-D array of pixels
+    * fromFile takes a file and packs its pixels row by row into one array
     */
     static Image fromFile(File file) throws FileNotFoundException {
-        Scanner scanner = new Scanner(file);
-        scanner.useDelimiter("((#[^\\n]*\\n)|(\\s+))+");
-        String imageID = scanner.next();
+        try (PpmReader reader = new PpmReader(file)) {
+            return fromReader(reader);
+        }
+    }
+
+    private static Image fromReader(PpmReader reader) {
+        String imageID = reader.next();
 
         //Get the Width and Height of the Image from the file
-        int width = scanner.nextInt();
-        int height = scanner.nextInt();
-        int maxColor = scanner.nextInt();
+        int width = reader.nextInt();
+        int height = reader.nextInt();
+        int maxColor = reader.nextInt();
+        //Each channel is packed into 8 bits
+        if (maxColor > 255)
+        {
+            throw new InputMismatchException("Only images with a max color value up to 255 are supported");
+        }
 
         //Once past the header formatting,
         //Populate the Image Pixels from the file
@@ -29,74 +60,228 @@ public class Image {
         image.height = height;
         image.width = width;
         image.maxColor = maxColor;
+        image.pixels = new int[height * width];
 
-        //And Make Pixels a 2-D Array with "height" rows and "width" columns
-        image.pixels = new Pixel[height][width];
+        if (imageID.equals(BINARY_PPM) || imageID.equals(BINARY_PGM))
+        {
+            readRaster(reader, image);
+            return image;
+        }
+        for (int k = 0; k < image.pixels.length; k++)
+        {
+            image.pixels[k] = rgb(sample(reader), sample(reader), sample(reader));
+        }
+        return image;
+    }
 
-        for (int i = 0; i < height; i++)
+    /*
+    * Reads a binary raster a row at a time: one byte per sample, three per pixel for P6 and
+    * one gray sample per pixel for P5
+    */
+    private static void readRaster(PpmReader reader, Image image)
+    {
+        reader.skipRasterSeparator();
+        boolean gray = image.ID.equals(BINARY_PGM);
+        byte[] row = new byte[gray ? image.width : image.width * 3];
+        for (int i = 0; i < image.height; i++)
         {
-            for (int j = 0; j < width; j++)
+            reader.readFully(row, 0, row.length);
+            int k = i * image.width;
+            if (gray)
             {
-                image.pixels[i][j] = new Pixel(scanner.nextInt(),scanner.nextInt(),scanner.nextInt());
+                for (int j = 0; j < image.width; j++)
+                {
+                    int value = row[j] & 0xFF;
+                    image.pixels[k + j] = rgb(value, value, value);
+                }
+            }
+            else
+            {
+                for (int j = 0; j < image.width; j++)
+                {
+                    image.pixels[k + j] = rgb(row[3 * j] & 0xFF, row[3 * j + 1] & 0xFF, row[3 * j + 2] & 0xFF);
+                }
             }
         }
-        return image;
     }
 
+    private static int sample(PpmReader reader)
+    {
+        int value = reader.nextInt();
+        if (value < 0 || value > 255)
+        {
+            throw new InputMismatchException("Color value out of range: " + value);
+        }
+        return value;
+    }
+
+    static int rgb(int red, int green, int blue)
+    {
+        return (red << 16) | (green << 8) | blue;
+    }
+
+    static int red(int pixel)
+    {
+        return pixel >>> 16;
+    }
+
+    static int green(int pixel)
+    {
+        return (pixel >>> 8) & 0xFF;
+    }
+
+    static int blue(int pixel)
+    {
+        return pixel & 0xFF;
+    }
+
+    /*
+    * toFile writes the image in the format its ID names: binary for P6 and P5, text (one sample
+    * per line) otherwise. The samples are put in a reusable buffer that goes to the file through
+    * a FileChannel whenever it fills up.
+    */
     File toFile(File outputFile) throws FileNotFoundException {
-        try {
-            PrintWriter out = new PrintWriter(outputFile, "UTF-8");
+        try (FileChannel channel = new FileOutputStream(outputFile).getChannel()) {
             //Add the Header to the file: P3, width, height, max color value
-            out.write( ID + "\n");
-            out.write(String.valueOf(width) + " " + String.valueOf(height) + "\n");
-            out.write(String.valueOf(maxColor) + "\n");
+            String header = ID + "\n" + width + " " + height + "\n" + maxColor + "\n";
+            writeAll(channel, ByteBuffer.wrap(header.getBytes(StandardCharsets.UTF_8)));
             //export the pixel color values to the outImage
-            for (int i = 0; i < this.height; i++) {
-                for (int j = 0; j < this.width; j++) {
-                out.write(String.valueOf(this.pixels[i][j].getRed()) + "\n");
-                out.write(String.valueOf(this.pixels[i][j].getGreen()) + "\n");
-                out.write(String.valueOf(this.pixels[i][j].getBlue()) + "\n");
-                }
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            if (ID.equals(BINARY_PPM) || ID.equals(BINARY_PGM)) {
+                writeBinaryRaster(channel, buffer, ID.equals(BINARY_PGM));
+            } else {
+                writeTextRaster(channel, buffer);
             }
-            out.flush();
-            out.close();
+        } catch (FileNotFoundException e) {
+            throw e;
         } catch (IOException e) {
             System.out.println("Error: File Format");
         }
         return outputFile;
     }
 
+    /*
+    * Writes each sample as its digits and a newline, copied from SAMPLE_TEXT
+    */
+    private void writeTextRaster(FileChannel channel, ByteBuffer buffer) throws IOException {
+        byte[] bytes = buffer.array();
+        int length = 0;
+        for (int pixel : pixels) {
+            if (length > bytes.length - 3 * SAMPLE_TEXT_WIDTH) {
+                writeAll(channel, buffer, length);
+                length = 0;
+            }
+            length = putSample(bytes, length, red(pixel));
+            length = putSample(bytes, length, green(pixel));
+            length = putSample(bytes, length, blue(pixel));
+        }
+        writeAll(channel, buffer, length);
+    }
+
+    /*
+    * Copies all SAMPLE_TEXT_WIDTH bytes of the value's slot, which is quicker than copying just
+    * its length; the bytes past the newline are overwritten by the next sample or never written
+    */
+    private static int putSample(byte[] bytes, int length, int value) {
+        int start = value * SAMPLE_TEXT_WIDTH;
+        bytes[length] = SAMPLE_TEXT[start];
+        bytes[length + 1] = SAMPLE_TEXT[start + 1];
+        bytes[length + 2] = SAMPLE_TEXT[start + 2];
+        bytes[length + 3] = SAMPLE_TEXT[start + 3];
+        return length + SAMPLE_TEXT_LENGTHS[value];
+    }
+
+    /*
+    * Writes one byte per sample. P5 has one sample per pixel, the gray value grayscaleImage
+    * would give it.
+    */
+    private void writeBinaryRaster(FileChannel channel, ByteBuffer buffer, boolean gray) throws IOException {
+        byte[] bytes = buffer.array();
+        int length = 0;
+        for (int pixel : pixels) {
+            if (length > bytes.length - 3) {
+                writeAll(channel, buffer, length);
+                length = 0;
+            }
+            if (gray) {
+                bytes[length++] = (byte) ((red(pixel) + green(pixel) + blue(pixel)) / 3);
+            } else {
+                bytes[length++] = (byte) red(pixel);
+                bytes[length++] = (byte) green(pixel);
+                bytes[length++] = (byte) blue(pixel);
+            }
+        }
+        writeAll(channel, buffer, length);
+    }
+
+    /*
+    * Writes the first length bytes of buffer's array
+    */
+    private static void writeAll(FileChannel channel, ByteBuffer buffer, int length) throws IOException {
+        buffer.limit(length).position(0);
+        writeAll(channel, buffer);
+        buffer.clear();
+    }
+
+    private static void writeAll(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /*
+    * Each transform runs over the whole image here, through a method that does the same to a
+    * band of rows [from, to) so FilterEngine can run bands in parallel
+    */
     Image invertImage()
     {
-        for (int i = 0; i < height; i++)
+        invertRows(0, height);
+        return this;
+    }
+
+    void invertRows(int from, int to)
+    {
+        //255 - value is value with its 8 bits flipped
+        for (int k = from * width; k < to * width; k++)
         {
-            for (int j = 0; j < width; j++)
-            {
-                this.pixels[i][j].setRed(255 - this.pixels[i][j].getRed());
-                this.pixels[i][j].setGreen(255 - this.pixels[i][j].getGreen());
-                this.pixels[i][j].setBlue(255 - this.pixels[i][j].getBlue());
-            }
+            pixels[k] ^= 0xFFFFFF;
         }
-        return this;
     }
 
     Image grayscaleImage()
     {
-        for (int i = 0; i < height; i++ )
+        grayscaleRows(0, height);
+        return this;
+    }
+
+    void grayscaleRows(int from, int to)
+    {
+        for (int k = from * width; k < to * width; k++)
         {
-            for (int j = 0; j < width; j++)
-            {
-                int grayValue = (this.pixels[i][j].getRed() + this.pixels[i][j].getGreen() + this.pixels[i][j].getBlue())/3;
-                this.pixels[i][j].setAll(grayValue);
-            }
+            int pixel = pixels[k];
+            int grayValue = (red(pixel) + green(pixel) + blue(pixel)) / 3;
+            pixels[k] = rgb(grayValue, grayValue, grayValue);
         }
-        return this;
     }
 
     Image embossImage()
     {
-        for (int i = this.height - 1; i >= 0; i-- )
+        embossRows(0, height, null);
+        return this;
+    }
+
+    /*
+    * above is a copy of row from - 1 as it was before any embossing, or null if from is 0
+    */
+    void embossRows(int from, int to, int[] above)
+    {
+        //Backwards, so the pixel up and to the left has not been changed yet when it is read
+        for (int i = to - 1; i >= from; i-- )
         {
+            int row = i * width;
+            //Where the row above starts
+            int[] up = i == from ? above : pixels;
+            int upRow = i == from ? 0 : row - width;
             for (int j = this.width - 1; j >= 0; j--)
             {
                 int embossValue;
@@ -106,9 +291,11 @@ public class Image {
                 }
                 else
                 {
-                    int redDiff = pixels[i][j].getRed() - pixels[i-1][j-1].getRed();
-                    int greenDiff = pixels[i][j].getGreen() - pixels[i-1][j-1].getGreen();
-                    int blueDiff = pixels[i][j].getBlue() - pixels[i-1][j-1].getBlue();
+                    int pixel = pixels[row + j];
+                    int upLeft = up[upRow + j - 1];
+                    int redDiff = red(pixel) - red(upLeft);
+                    int greenDiff = green(pixel) - green(upLeft);
+                    int blueDiff = blue(pixel) - blue(upLeft);
                     int maxDifference =
                             (Math.abs(redDiff) >= Math.max(Math.abs(greenDiff), Math.abs(blueDiff))) ? redDiff :
                             (Math.abs(greenDiff) >= Math.abs(blueDiff) ? greenDiff:blueDiff);
@@ -116,45 +303,57 @@ public class Image {
                     if(embossValue < 0){embossValue = 0;}
                     else if (embossValue > 255){embossValue = 255;}
                 }
-                this.pixels[i][j].setAll(embossValue);
+                pixels[row + j] = rgb(embossValue, embossValue, embossValue);
             }
         }
-        return this;
     }
 
     Image blurImage(int n)
     {
-        for (int i = 0; i < height; i++)
+        blurRows(n, 0, height);
+        return this;
+    }
+
+    /*
+    * Rows are blurred on their own, so any band of them can be
+    */
+    void blurRows(int n, int from, int to)
+    {
+        if (n == 1) //Each pixel is its own average
         {
+            return;
+        }
+        for (int i = from; i < to; i++)
+        {
+            int row = i * width;
+            //Sums of the window [j, j + n) clipped to the row. Pixel j is only overwritten once
+            //its window has moved past it, so the window always holds original values.
+            int sumRed = 0;
+            int sumGreen = 0;
+            int sumBlue = 0;
+            for (int k = 0; k < Math.min(n, width); k++)
+            {
+                int pixel = pixels[row + k];
+                sumRed += red(pixel);
+                sumGreen += green(pixel);
+                sumBlue += blue(pixel);
+            }
             for (int j = 0; j < width; j++) //For each pixel
             {
-                int avgRed = 0;
-                int avgGreen = 0;
-                int avgBlue = 0;
-                int rightLimit = Math.min(j + n, width);
-                for (int k = j; k < rightLimit ; k++)
+                int count = Math.min(n, width - j);
+                int pixel = pixels[row + j];
+                pixels[row + j] = rgb(sumRed / count, sumGreen / count, sumBlue / count);
+                sumRed -= red(pixel);
+                sumGreen -= green(pixel);
+                sumBlue -= blue(pixel);
+                if (j < width - n)
                 {
-                    avgRed += this.pixels[i][k].getRed();
-                    avgGreen += this.pixels[i][k].getGreen();
-                    avgBlue += this.pixels[i][k].getBlue();
+                    int entering = pixels[row + j + n];
+                    sumRed += red(entering);
+                    sumGreen += green(entering);
+                    sumBlue += blue(entering);
                 }
-                if (n == 1)
-                {
-                    avgRed = this.pixels[i][j].getRed();
-                    avgGreen = this.pixels[i][j].getGreen();
-                    avgBlue = this.pixels[i][j].getBlue();
-                }
-                else
-                {
-                    avgRed = avgRed / (rightLimit - j);
-                    avgGreen = avgGreen / (rightLimit - j);
-                    avgBlue = avgBlue / (rightLimit - j);
-                }
-                this.pixels[i][j].setRed(avgRed);
-                this.pixels[i][j].setGreen(avgGreen);
-                this.pixels[i][j].setBlue(avgBlue);
             }
         }
-        return this;
     }
-}
\ No newline at end of file
+}
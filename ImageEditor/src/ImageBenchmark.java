@@ -0,0 +1,199 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/*
+* Times reading and writing a large generated image, comparing Image.toFile and Image.fromFile
+* with the PrintWriter and Scanner they replaced, and checks that they write the same file and
+* read the same pixels. Then times the binary P6 and P5
+* formats and checks that converting to them and back gives the same image and the same P3 file.
+* Last, times each transform alone and with FilterEngine on more and more threads, and checks
+* that both give the same pixels.
+* This class is not used by the passoff program.
+*
+* USAGE: java ImageBenchmark [width height]
+* The default image is 4000x3000.
+*/
+public class ImageBenchmark {
+
+    private static final long SEED = 3000;
+
+    public static void main(String[] args) throws IOException {
+        int width = args.length > 1 ? Integer.parseInt(args[0]) : 4000;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 3000;
+        Image image = generateImage(width, height, SEED);
+        File file = File.createTempFile("benchmark", ".ppm");
+        file.deleteOnExit();
+
+        long start = System.nanoTime();
+        image.toFile(file);
+        report("P3 write", image, System.nanoTime() - start);
+        System.out.println("P3 size: " + file.length() / (1024 * 1024) + " MB");
+        File printedFile = File.createTempFile("benchmark", ".ppm");
+        printedFile.deleteOnExit();
+        start = System.nanoTime();
+        printWriterFile(image, printedFile);
+        report("P3 write with PrintWriter", image, System.nanoTime() - start);
+        checkSameFile("P3 write", printedFile, file);
+        printedFile.delete();
+
+        start = System.nanoTime();
+        Image read = Image.fromFile(file);
+        report("P3 read", image, System.nanoTime() - start);
+        check("P3 read", image, read);
+
+        start = System.nanoTime();
+        int[] scanned = scannerPixels(file);
+        report("P3 read with Scanner", image, System.nanoTime() - start);
+        if (!Arrays.equals(scanned, read.pixels)) {
+            System.out.println("Scanner read different pixels!");
+        }
+
+        //P3 -> P6 -> P3 must give back the same file
+        File binaryFile = File.createTempFile("benchmark", ".ppm");
+        binaryFile.deleteOnExit();
+        read.ID = Image.BINARY_PPM;
+        start = System.nanoTime();
+        read.toFile(binaryFile);
+        report("P6 write", image, System.nanoTime() - start);
+        System.out.println("P6 size: " + binaryFile.length() / (1024 * 1024) + " MB");
+        start = System.nanoTime();
+        Image binary = Image.fromFile(binaryFile);
+        report("P6 read", image, System.nanoTime() - start);
+        binary.ID = image.ID;
+        check("P6 round trip", image, binary);
+        File textFile = File.createTempFile("benchmark", ".ppm");
+        textFile.deleteOnExit();
+        binary.toFile(textFile);
+        checkSameFile("P3 -> P6 -> P3", file, textFile);
+
+        //P5 only holds gray pixels, so compare with the grayscale image
+        Image gray = Image.fromFile(file).grayscaleImage();
+        gray.toFile(textFile);
+        gray.ID = Image.BINARY_PGM;
+        start = System.nanoTime();
+        gray.toFile(binaryFile);
+        report("P5 write", image, System.nanoTime() - start);
+        start = System.nanoTime();
+        Image grayBinary = Image.fromFile(binaryFile);
+        report("P5 read", image, System.nanoTime() - start);
+        check("P5 round trip", gray, grayBinary);
+        grayBinary.ID = "P3";
+        File grayTextFile = File.createTempFile("benchmark", ".ppm");
+        grayTextFile.deleteOnExit();
+        grayBinary.toFile(grayTextFile);
+        checkSameFile("P3 -> P5 -> P3", textFile, grayTextFile);
+
+        //Each transform on one thread, then with FilterEngine on 1 to 8 threads
+        compareFilters("invert", image, Image::invertImage, FilterEngine::invertImage);
+        compareFilters("grayscale", image, Image::grayscaleImage, FilterEngine::grayscaleImage);
+        compareFilters("emboss", image, Image::embossImage, FilterEngine::embossImage);
+        compareFilters("motionblur 20", image, copy -> copy.blurImage(20), (engine, copy) -> engine.blurImage(copy, 20));
+    }
+
+    static void compareFilters(String name, Image image, Function<Image, Image> sequential,
+                               BiFunction<FilterEngine, Image, Image> parallel) {
+        Image expected = copy(image);
+        long start = System.nanoTime();
+        sequential.apply(expected);
+        report(name, image, System.nanoTime() - start);
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            Image actual = copy(image);
+            start = System.nanoTime();
+            parallel.apply(new FilterEngine(pool), actual);
+            report(name + " on " + threads + " threads", image, System.nanoTime() - start);
+            check(name + " on " + threads + " threads", expected, actual);
+            pool.shutdown();
+        }
+    }
+
+    static Image copy(Image image) {
+        Image copy = new Image();
+        copy.ID = image.ID;
+        copy.width = image.width;
+        copy.height = image.height;
+        copy.maxColor = image.maxColor;
+        copy.pixels = image.pixels.clone();
+        return copy;
+    }
+
+    static void checkSameFile(String name, File expected, File actual) throws IOException {
+        if (!Arrays.equals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()))) {
+            System.out.println(name + " changed the file!");
+        }
+    }
+
+    /*
+    * Writes the image the way Image.toFile used to, with a PrintWriter
+    */
+    static void printWriterFile(Image image, File outputFile) throws IOException {
+        PrintWriter out = new PrintWriter(outputFile, "UTF-8");
+        out.write( image.ID + "\n");
+        out.write(String.valueOf(image.width) + " " + String.valueOf(image.height) + "\n");
+        out.write(String.valueOf(image.maxColor) + "\n");
+        for (int pixel : image.pixels) {
+            out.write(String.valueOf(Image.red(pixel)) + "\n");
+            out.write(String.valueOf(Image.green(pixel)) + "\n");
+            out.write(String.valueOf(Image.blue(pixel)) + "\n");
+        }
+        out.flush();
+        out.close();
+    }
+
+    /*
+    * Reads the pixels the way Image.fromFile used to, with a Scanner
+    */
+    static int[] scannerPixels(File file) throws IOException {
+        try (Scanner scanner = new Scanner(file)) {
+            scanner.useDelimiter("((#[^\\n]*\\n)|(\\s+))+");
+            scanner.next();
+            int width = scanner.nextInt();
+            int height = scanner.nextInt();
+            scanner.nextInt();
+            int[] pixels = new int[width * height];
+            for (int k = 0; k < pixels.length; k++)
+            {
+                pixels[k] = Image.rgb(scanner.nextInt(), scanner.nextInt(), scanner.nextInt());
+            }
+            return pixels;
+        }
+    }
+
+    /*
+    * Makes a reproducible image of random pixels
+    */
+    static Image generateImage(int width, int height, long seed) {
+        Random random = new Random(seed);
+        Image image = new Image();
+        image.ID = "P3";
+        image.width = width;
+        image.height = height;
+        image.maxColor = 255;
+        image.pixels = new int[width * height];
+        for (int k = 0; k < image.pixels.length; k++)
+        {
+            image.pixels[k] = random.nextInt(1 << 24);
+        }
+        return image;
+    }
+
+    static void check(String name, Image expected, Image actual) {
+        if (!expected.ID.equals(actual.ID) || expected.width != actual.width || expected.height != actual.height
+                || expected.maxColor != actual.maxColor || !Arrays.equals(expected.pixels, actual.pixels)) {
+            System.out.println(name + " does not match the original image!");
+        }
+    }
+
+    static void report(String name, Image image, long nanos) {
+        System.out.printf("%s: %d ms, %.1f megapixels/s%n", name, nanos / 1000000,
+                image.pixels.length / (nanos / 1e3));
+    }
+}
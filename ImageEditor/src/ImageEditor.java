@@ -1,15 +1,37 @@
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
 
 
 public class ImageEditor {
 
-    private static final String USAGE = "USAGE: java ImageEditor in-file out-file"
-            + " (grayscale|invert|emboss|motionblur motion-blur-length)";
+    private static final String USAGE = "USAGE: java ImageEditor [-format (P3|P5|P6)] [-threads thread-count]"
+            + " in-file out-file (grayscale|invert|emboss|motionblur motion-blur-length)";
 
     public static void main(String[] args) {
         Image image = null;
+        //Without -format the output is in the same format as the input
+        String format = null;
+        //Without -threads the transforms run on this thread
+        FilterEngine engine = null;
+        while (args.length > 1 && args[0].startsWith("-")) {
+            if (args[0].equals("-format")) {
+                format = args[1].toUpperCase();
+                if (!format.equals("P3") && !format.equals(Image.BINARY_PPM) && !format.equals(Image.BINARY_PGM)) {
+                    System.out.println(USAGE);
+                    return;
+                }
+            } else if (args[0].equals("-threads") && args[1].matches("[1-9][0-9]{0,3}")) {
+                engine = new FilterEngine(new ForkJoinPool(Integer.parseInt(args[1])));
+            } else {
+                System.out.println(USAGE);
+                return;
+            }
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
         if (args.length < 3 || args.length > 4) {
             System.out.println(USAGE);
             return;
@@ -23,6 +45,9 @@ public class ImageEditor {
                 System.out.println("File Not Found.");
                 System.out.println(USAGE);
                 return;
+            } catch (NoSuchElementException e) {
+                System.out.println("Error: File Format");
+                return;
             }
 
             switch (args.length)
@@ -31,15 +56,15 @@ public class ImageEditor {
                 {
                     switch(args[2]) {
                         case ("invert"): {
-                            image = image.invertImage();
+                            image = engine != null ? engine.invertImage(image) : image.invertImage();
                             break;
                         }
                         case ("grayscale"): {
-                            image = image.grayscaleImage();
+                            image = engine != null ? engine.grayscaleImage(image) : image.grayscaleImage();
                             break;
                         }
                         case ("emboss"): {
-                            image = image.embossImage();
+                            image = engine != null ? engine.embossImage(image) : image.embossImage();
                             break;
                         }
                         case ("nothing"):
@@ -65,7 +90,8 @@ public class ImageEditor {
                                 System.out.println(USAGE);
                                 return;
                             }
-                            image = image.blurImage(Integer.parseInt(args[3]));
+                            int length = Integer.parseInt(args[3]);
+                            image = engine != null ? engine.blurImage(image, length) : image.blurImage(length);
                             break;
                         }
                         default:
@@ -82,6 +108,9 @@ public class ImageEditor {
                     return;
                 }
             }
+            if (format != null) {
+                image.ID = format;
+            }
             try {
                 image.toFile(outputFile);
             } catch (FileNotFoundException e) {
@@ -0,0 +1,206 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/*
+* Reads the tokens of a PPM file straight from its bytes, in big chunks through a FileChannel.
+* Tokens are split the same way as a Scanner with the delimiter ((#[^\n]*\n)|(\s+))+ : on runs
+* of whitespace and of comments running from # to the end of the line, even in the middle of a
+* token. A # with no newline after it is not a comment but part of a token, which could never
+* be read as a number, so that is reported as soon as the # is reached.
+* Integers are parsed as their digits are read, without making a String.
+* The raster of a binary P6 or P5 file is read in bulk with readFully.
+*/
+class PpmReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] bytes = buffer.array();
+    private int position;
+    private int limit;
+    private boolean endOfFile;
+
+    PpmReader(File file) throws FileNotFoundException {
+        channel = new FileInputStream(file).getChannel();
+    }
+
+    /*
+    * Returns the next token, for the image ID
+    */
+    String next() {
+        skipDelimiters();
+        StringBuilder token = new StringBuilder();
+        int b;
+        while ((b = tokenByte()) >= 0) {
+            token.append((char) b);
+        }
+        return token.toString();
+    }
+
+    /*
+    * Returns the next token as an int, like Scanner.nextInt
+    */
+    int nextInt() {
+        skipDelimiters();
+        int b = tokenByte();
+        boolean negative = b == '-';
+        if (b == '-' || b == '+') {
+            b = tokenByte();
+        }
+        if (b < 0) {
+            throw new InputMismatchException("Not a number");
+        }
+        long value = 0;
+        do {
+            if (b < '0' || b > '9') {
+                throw new InputMismatchException("Not a number");
+            }
+            value = value * 10 + (b - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new InputMismatchException("Number out of range");
+            }
+        } while ((b = tokenByte()) >= 0);
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new InputMismatchException("Number out of range");
+        }
+        return (int) value;
+    }
+
+    /*
+    * Skips the single whitespace byte between the header and a binary raster
+    */
+    void skipRasterSeparator() {
+        int b = peek();
+        if (b < 0 || !isWhitespace(b)) {
+            throw new InputMismatchException("No whitespace before the raster");
+        }
+        position++;
+    }
+
+    /*
+    * Reads exactly length raw bytes into destination, first from the buffer and then straight
+    * from the file
+    */
+    void readFully(byte[] destination, int offset, int length) {
+        int buffered = Math.min(length, limit - position);
+        System.arraycopy(bytes, position, destination, offset, buffered);
+        position += buffered;
+        if (buffered == length) {
+            return;
+        }
+        ByteBuffer target = ByteBuffer.wrap(destination, offset + buffered, length - buffered);
+        try {
+            while (target.hasRemaining()) {
+                if (channel.read(target) < 0) {
+                    endOfFile = true;
+                    throw new NoSuchElementException("Raster ends early");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+    * Skips whitespace and comments up to the start of the next token
+    */
+    private void skipDelimiters() {
+        while (true) {
+            int b = peek();
+            if (b < 0) {
+                throw new NoSuchElementException();
+            }
+            if (isWhitespace(b)) {
+                position++;
+            } else if (b == '#') {
+                skipComment();
+            } else {
+                return;
+            }
+        }
+    }
+
+    /*
+    * Returns the next byte of the current token, or -1 where the token ends
+    */
+    private int tokenByte() {
+        int b = peek();
+        if (b < 0 || isWhitespace(b)) {
+            return -1;
+        }
+        if (b == '#') {
+            skipComment();
+            return -1;
+        }
+        position++;
+        return b;
+    }
+
+    /*
+    * At a #, skips past the end of the line
+    */
+    private void skipComment() {
+        position++;
+        int b;
+        while ((b = peek()) != '\n') {
+            if (b < 0) {
+                throw new InputMismatchException("Comment with no end of line");
+            }
+            position++;
+        }
+        position++;
+    }
+
+    private int peek() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return bytes[position] & 0xFF;
+    }
+
+    /*
+    * Reads the next chunk of the file once every byte of the last one has been used
+    */
+    private boolean fill() {
+        if (endOfFile) {
+            return false;
+        }
+        buffer.clear();
+        position = 0;
+        limit = 0;
+        try {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                endOfFile = true;
+                return false;
+            }
+            limit = read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //The characters \s matches
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || (b >= '\t' && b <= '\r');
+    }
+
+    //Nothing was written, so a failure to close loses nothing
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+        }
+    }
+}
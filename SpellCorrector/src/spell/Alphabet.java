@@ -0,0 +1,113 @@
+package spell;
+
+import java.util.Arrays;
+
+/**
+ * The characters a Trie can hold, each given an ordinal in character order so that walking
+ * children by ordinal visits words alphabetically.
+ * <code>ASCII</code> (a to z) is the default and keeps the original <code>c - 'a'</code> fast path.
+ * Other alphabets are built from the characters a dictionary actually uses; small ones still
+ * give each node a dense child array indexed by ordinal, while large ones (many scripts, or
+ * CJK) switch the nodes to sparse, sorted child lists.
+ */
+public class Alphabet {
+
+    public static final Alphabet ASCII = new Alphabet("abcdefghijklmnopqrstuvwxyz".toCharArray());
+
+    //Alphabets larger than this use sparse child lists
+    static final int DENSE_LIMIT = 64;
+
+    //Sorted, so an ordinal is a position in this array
+    final char[] letters;
+    private final boolean ascii;
+    //Ordinal of each character below 256, or -1, so Latin alphabets avoid the binary search
+    private final int[] latinOrdinals;
+
+    private Alphabet(char[] letters) {
+        this.letters = letters;
+        this.ascii = letters.length == 26 && letters[0] == 'a' && letters[25] == 'z';
+        latinOrdinals = new int[256];
+        Arrays.fill(latinOrdinals, -1);
+        for (int i = 0; i < letters.length; i++) {
+            if (letters[i] < 256) {
+                latinOrdinals[letters[i]] = i;
+            }
+        }
+    }
+
+    /**
+     * Builds the alphabet of the characters marked in <code>used</code> (indexed by character).
+     * If they are all a to z, this is <code>ASCII</code>.
+     */
+    public static Alphabet of(boolean[] used) {
+        int size = 0;
+        boolean ascii = true;
+        for (int c = 0; c < used.length; c++) {
+            if (used[c]) {
+                size++;
+                ascii &= c >= 'a' && c <= 'z';
+            }
+        }
+        if (ascii) {
+            return ASCII;
+        }
+        char[] letters = new char[size];
+        int next = 0;
+        for (int c = 0; c < used.length; c++) {
+            if (used[c]) {
+                letters[next++] = (char) c;
+            }
+        }
+        return new Alphabet(letters);
+    }
+
+    /**
+     * Builds the alphabet of the labels used in a packed trie.
+     */
+    public static Alphabet of(PackedTrie trie) {
+        boolean[] used = new boolean[Character.MAX_VALUE + 1];
+        for (int node = 1; node < trie.getNodeCount(); node++) {
+            used[trie.label(node)] = true;
+        }
+        return of(used);
+    }
+
+    /**
+     * Returns the ordinal of <code>c</code>, or -1 if it is not in the alphabet
+     */
+    public int ordinal(char c) {
+        if (ascii) {
+            int index = c - 'a';
+            return index >= 0 && index < 26 ? index : -1;
+        }
+        if (c < 256) {
+            return latinOrdinals[c];
+        }
+        int index = Arrays.binarySearch(letters, c);
+        return index >= 0 ? index : -1;
+    }
+
+    public char letter(int ordinal) {
+        return letters[ordinal];
+    }
+
+    public boolean contains(char c) {
+        return ordinal(c) >= 0;
+    }
+
+    public int size() {
+        return letters.length;
+    }
+
+    /**
+     * Whether trie nodes give every letter a slot, rather than listing only their children
+     */
+    public boolean isDense() {
+        return letters.length <= DENSE_LIMIT;
+    }
+
+    @Override
+    public String toString() {
+        return new String(letters);
+    }
+}
@@ -0,0 +1,77 @@
+package spell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures BatchCorrector throughput over a generated multi-MB document, against correcting
+ * the same document one word at a time. This class is not used by the passoff program.
+ *
+ * USAGE: java spell.BatchBenchmark [dictionary-file]
+ */
+public class BatchBenchmark {
+
+    private static final int WORD_COUNT = 200000;
+    private static final int DISTINCT_INPUTS = 20000;
+    private static final int DOCUMENT_WORDS = 1000000;
+    private static final long SEED = 240;
+
+    public static void main(String[] args) {
+        try {
+            String dictionaryFileName;
+            if (args.length > 0) {
+                dictionaryFileName = args[0];
+            } else {
+                dictionaryFileName = Benchmark.generateDictionary(WORD_COUNT, SEED).getPath();
+            }
+            SpellCorrector spellCorrector = new SpellCorrector();
+            spellCorrector.useDictionary(dictionaryFileName);
+
+            File document = generateDocument(spellCorrector.loaded.trie);
+            System.out.println("Document: " + document.length() / 1024 + " KB, " + DOCUMENT_WORDS + " words");
+
+            BatchCorrector batchCorrector = new BatchCorrector(spellCorrector);
+            long start = System.nanoTime();
+            List<String> batch = batchCorrector.correct(document);
+            Benchmark.report("Batch", batch.size(), System.nanoTime() - start);
+            System.out.println("Distinct words: " + batchCorrector.size());
+
+            //One word at a time, over the same tokens, must give the same answers in the same order
+            List<String> words = BatchCorrector.readWords(document);
+            start = System.nanoTime();
+            for (int i = 0; i < words.size(); i++) {
+                String expected = spellCorrector.suggestSimilarWord(words.get(i));
+                String actual = batch.get(i);
+                if (expected == null ? actual != null : !expected.equals(actual)) {
+                    System.out.println("Mismatch for " + words.get(i) + ": " + expected + " vs " + actual);
+                }
+            }
+            Benchmark.report("One at a time", words.size(), System.nanoTime() - start);
+        } catch (IOException ex) {
+            System.out.println("Error");
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes a document of misspelled dictionary words whose frequencies follow a Zipf-like curve.
+     */
+    static File generateDocument(Trie dictionary) throws IOException {
+        List<String> inputs = Benchmark.misspellings(dictionary, DISTINCT_INPUTS, SEED);
+        Random random = new Random(SEED);
+        File file = File.createTempFile("document", ".txt");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (int i = 0; i < DOCUMENT_WORDS; i++) {
+                //Squaring a uniform value favors the low indexes heavily
+                double uniform = random.nextDouble();
+                out.print(inputs.get((int) (uniform * uniform * inputs.size())));
+                out.print(i % 12 == 11 ? '\n' : ' ');
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,148 @@
+package spell;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Corrects whole documents with one <code>SpellCorrector</code>.
+ * Repeated words are only corrected once: results are memoized in a bounded
+ * <code>CorrectionCache</code>, and the distinct words of a batch are corrected in parallel
+ * on a ForkJoinPool. The memo is emptied by the next batch after the corrector loads a new
+ * dictionary, so it never outlives the dictionary its corrections came from.
+ */
+public class BatchCorrector {
+
+    public static final int DEFAULT_MEMO_SIZE = 100000;
+
+    //ConcurrentHashMap cannot hold null, so "no similar word" is stored as this marker
+    private static final String NO_SUGGESTION = new String("");
+
+    private final ISpellCorrector corrector;
+    private final ForkJoinPool pool;
+    private final CorrectionCache corrections;
+    //The corrector's dictionary generation the memoized corrections were worked out against
+    private long generation;
+
+    public BatchCorrector(ISpellCorrector corrector) {
+        this(corrector, ForkJoinPool.commonPool());
+    }
+
+    public BatchCorrector(ISpellCorrector corrector, ForkJoinPool pool) {
+        this(corrector, pool, DEFAULT_MEMO_SIZE);
+    }
+
+    /**
+     * @param memoSize How many distinct words to remember corrections for between batches
+     */
+    public BatchCorrector(ISpellCorrector corrector, ForkJoinPool pool, int memoSize) {
+        this.corrector = corrector;
+        this.pool = pool;
+        this.corrections = new CorrectionCache(memoSize, CorrectionCache.Policy.TINY_LFU);
+        this.generation = dictionaryGeneration();
+    }
+
+    /**
+     * Corrects every word in the stream.
+     *
+     * @param words The words to correct
+     * @return The suggestion for each word, in the same order, with null where there is
+     *          no similar word in the dictionary
+     */
+    public List<String> correct(Stream<String> words) {
+        List<String> inputs = words.map(String::toLowerCase).collect(Collectors.toList());
+        forgetOldDictionary();
+
+        //The memo may evict a word before the results are put together, so this batch
+        //keeps its own answers
+        Set<String> distinct = new HashSet<>(inputs);
+        Map<String, String> batch = new ConcurrentHashMap<>();
+        try {
+            pool.submit(() -> distinct.parallelStream().forEach(word -> {
+                String suggestion = corrections.get(word, corrector::suggestSimilarWord);
+                batch.put(word, suggestion == null ? NO_SUGGESTION : suggestion);
+            })).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while correcting", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Correction failed", ex.getCause());
+        }
+
+        List<String> result = new ArrayList<>(inputs.size());
+        for (String word : inputs) {
+            String suggestion = batch.get(word);
+            result.add(suggestion == NO_SUGGESTION ? null : suggestion);
+        }
+        return result;
+    }
+
+    /**
+     * Empties the memo if the corrector has loaded a dictionary since it was filled. The
+     * generation is read before any correction of this batch, so a reload during the batch
+     * is caught by the next one.
+     */
+    private synchronized void forgetOldDictionary() {
+        long current = dictionaryGeneration();
+        if (current != generation) {
+            corrections.clear();
+            generation = current;
+        }
+    }
+
+    /**
+     * Other correctors cannot say when their dictionary changes, so they always report 0.
+     */
+    private long dictionaryGeneration() {
+        if (corrector instanceof SpellCorrector) {
+            return ((SpellCorrector) corrector).dictionaryGeneration;
+        }
+        return 0;
+    }
+
+    /**
+     * Corrects every whitespace separated word in a file.
+     *
+     * @param file The document to correct
+     * @return The suggestion for each word, in order, with null where there is no similar word
+     * @throws IOException If the file cannot be read
+     */
+    public List<String> correct(File file) throws IOException {
+        return correct(readWords(file).stream());
+    }
+
+    static List<String> readWords(File file) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (Scanner scanner = new Scanner(file)) {
+            while (scanner.hasNext()) {
+                words.add(scanner.next());
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Returns the number of distinct words with a memoized correction
+     */
+    public int size() {
+        return corrections.size();
+    }
+
+    /**
+     * Forgets every memoized correction. A <code>SpellCorrector</code> loading a new
+     * dictionary does not need this; the next batch notices the reload.
+     */
+    public void clear() {
+        corrections.clear();
+    }
+}
@@ -0,0 +1,221 @@
+package spell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A simple benchmark comparing load time and lookups per second of each SpellCorrector lookup
+ * mode and of a dictionary snapshot, and the memory footprint of the Trie against a CompactTrie.
+ * This class is not used by the passoff program.
+ *
+ * USAGE: java spell.Benchmark [dictionary-file]
+ * Without a dictionary file, a reproducible dictionary of generated words is used.
+ */
+public class Benchmark {
+
+    private static final int WORD_COUNT = 200000;
+    private static final int LOOKUP_COUNT = 500;
+    private static final int TOP_K = 5;
+    private static final long SEED = 240;
+
+    public static void main(String[] args) {
+        try {
+            String dictionaryFileName;
+            if (args.length > 0) {
+                dictionaryFileName = args[0];
+            } else {
+                dictionaryFileName = generateDictionary(WORD_COUNT, SEED).getPath();
+            }
+            SpellCorrector.LookupMode[] modes = SpellCorrector.LookupMode.values();
+            //One corrector per lookup mode, plus one reading a snapshot of the dictionary
+            String[] names = new String[modes.length + 1];
+            SpellCorrector[] spellCorrectors = new SpellCorrector[modes.length + 1];
+            for (int i = 0; i < modes.length; i++) {
+                names[i] = modes[i].toString();
+                spellCorrectors[i] = new SpellCorrector(modes[i]);
+                long start = System.nanoTime();
+                spellCorrectors[i].useDictionary(dictionaryFileName);
+                System.out.println(names[i] + " Load: " + (System.nanoTime() - start) / 1000000 + " ms");
+            }
+            File snapshot = File.createTempFile("dictionary", ".trie");
+            snapshot.deleteOnExit();
+            spellCorrectors[0].writeSnapshot(snapshot.getPath());
+            names[modes.length] = "SNAPSHOT";
+            spellCorrectors[modes.length] = new SpellCorrector();
+            long snapshotStart = System.nanoTime();
+            spellCorrectors[modes.length].useSnapshot(snapshot.getPath());
+            System.out.println("SNAPSHOT Load: " + (System.nanoTime() - snapshotStart) / 1000 + " us, "
+                    + snapshot.length() / 1024 + " KB");
+            Trie dictionary = spellCorrectors[0].loaded.trie;
+            System.out.println("Word Count: " + dictionary.getWordCount());
+            System.out.println("Node Count: " + dictionary.getNodeCount());
+            CompactTrie compactTrie = new CompactTrie(dictionary);
+            System.out.println("Trie Footprint: " + MemoryFootprint.format(dictionary.getMemoryFootprint()));
+            System.out.println("CompactTrie Footprint: " + MemoryFootprint.format(compactTrie.getMemoryFootprint()));
+            if (!compactTrie.toString().equals(dictionary.toString())) {
+                System.out.println("CompactTrie does not hold the same words");
+            }
+            long dawgStart = System.nanoTime();
+            Dawg dawg = new Dawg(dictionary);
+            System.out.println("DAWG Build: " + (System.nanoTime() - dawgStart) / 1000000 + " ms");
+            System.out.println("DAWG Node Count: " + dawg.getNodeCount() + " (" + dawg.getEdgeCount() + " edges)");
+            System.out.println("DAWG Footprint: " + MemoryFootprint.format(dawg.getMemoryFootprint()));
+            if (!dawg.toString().equals(dictionary.toString())) {
+                System.out.println("DAWG does not hold the same words");
+            }
+            buildInParallel(dictionaryFileName, dictionary);
+
+            List<String> inputs = misspellings(dictionary, LOOKUP_COUNT, SEED);
+            for (String input : inputs) {
+                ITrie.INode expected = dictionary.find(input);
+                ITrie.INode actual = compactTrie.find(input);
+                if (expected == null ? actual != null : actual == null || expected.getValue() != actual.getValue()) {
+                    System.out.println("CompactTrie mismatch for " + input);
+                }
+                actual = dawg.find(input);
+                if (expected == null ? actual != null : actual == null || expected.getValue() != actual.getValue()) {
+                    System.out.println("DAWG mismatch for " + input);
+                }
+            }
+
+            //Every corrector must agree before their speed is worth comparing
+            for (String input : inputs) {
+                String expected = spellCorrectors[0].suggestSimilarWord(input);
+                for (int i = 1; i < spellCorrectors.length; i++) {
+                    String actual = spellCorrectors[i].suggestSimilarWord(input);
+                    if (expected == null ? actual != null : !expected.equals(actual)) {
+                        System.out.println(names[i] + " mismatch for " + input + ": " + expected + " vs " + actual);
+                    }
+                }
+            }
+
+            for (int i = 0; i < spellCorrectors.length; i++) {
+                long start = System.nanoTime();
+                for (String input : inputs) {
+                    spellCorrectors[i].suggestSimilarWord(input);
+                }
+                report(names[i], inputs.size(), System.nanoTime() - start);
+            }
+
+            //Top k lookups must also agree, whichever way the candidates are found
+            for (String input : inputs) {
+                List<String> expected = spellCorrectors[0].suggestTopK(input, TOP_K);
+                for (int i = 1; i < spellCorrectors.length; i++) {
+                    List<String> actual = spellCorrectors[i].suggestTopK(input, TOP_K);
+                    if (!expected.equals(actual)) {
+                        System.out.println(names[i] + " top " + TOP_K + " mismatch for " + input + ": " + expected + " vs " + actual);
+                    }
+                }
+            }
+            for (int i = 0; i < spellCorrectors.length; i++) {
+                long start = System.nanoTime();
+                for (String input : inputs) {
+                    spellCorrectors[i].suggestTopK(input, TOP_K);
+                }
+                report(names[i] + " top " + TOP_K, inputs.size(), System.nanoTime() - start);
+            }
+        } catch (IOException ex) {
+            System.out.println("Error");
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Times building the Trie one word at a time against ParallelTrieBuilder, which must
+     * build the same Trie.
+     */
+    private static void buildInParallel(String dictionaryFileName, Trie expected) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (WordReader reader = new WordReader(new File(dictionaryFileName))) {
+            String word;
+            while ((word = reader.next()) != null) {
+                words.add(word);
+            }
+        }
+        long start = System.nanoTime();
+        Trie sequential = new Trie();
+        for (String word : words) {
+            sequential.add(word);
+        }
+        report("Sequential build", words.size(), System.nanoTime() - start, "words");
+        start = System.nanoTime();
+        Trie parallel = new ParallelTrieBuilder().build(words, Alphabet.ASCII);
+        report("Parallel build (" + ForkJoinPool.commonPool().getParallelism() + " threads)",
+                words.size(), System.nanoTime() - start, "words");
+        if (!parallel.equals(expected) || !sequential.equals(expected)) {
+            System.out.println("ParallelTrieBuilder built a different Trie");
+        }
+    }
+
+    static void report(String name, long lookups, long nanos) {
+        report(name, lookups, nanos, "lookups");
+    }
+
+    static void report(String name, long count, long nanos, String unit) {
+        System.out.println(name + ": " + (long) (count / (nanos / 1e9)) + " " + unit + "/s");
+    }
+
+    /**
+     * Writes <code>count</code> random lower case words (with repeats, so frequencies vary)
+     * to a temporary file.
+     */
+    static File generateDictionary(int count, long seed) throws IOException {
+        Random random = new Random(seed);
+        File file = File.createTempFile("dictionary", ".txt");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (int i = 0; i < count; i++) {
+                int length = 3 + random.nextInt(8);
+                StringBuilder builder = new StringBuilder(length);
+                for (int j = 0; j < length; j++) {
+                    builder.append((char) ('a' + random.nextInt(26)));
+                }
+                int repeats = 1 + random.nextInt(3);
+                for (int j = 0; j < repeats; j++) {
+                    out.println(builder);
+                }
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Picks dictionary words and applies up to three random edits to each of them.
+     */
+    static List<String> misspellings(Trie dictionary, int count, long seed) {
+        Random random = new Random(seed);
+        String[] words = dictionary.toString().split("\n");
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder word = new StringBuilder(words[random.nextInt(words.length)]);
+            int edits = random.nextInt(4);
+            for (int j = 0; j < edits && word.length() > 1; j++) {
+                int position = random.nextInt(word.length());
+                switch (random.nextInt(4)) {
+                    case 0:
+                        word.deleteCharAt(position);
+                        break;
+                    case 1:
+                        if (position + 1 < word.length()) {
+                            char temp = word.charAt(position);
+                            word.setCharAt(position, word.charAt(position + 1));
+                            word.setCharAt(position + 1, temp);
+                        }
+                        break;
+                    case 2:
+                        word.setCharAt(position, (char) ('a' + random.nextInt(26)));
+                        break;
+                    default:
+                        word.insert(position, (char) ('a' + random.nextInt(26)));
+                }
+            }
+            result.add(word.toString());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,245 @@
+package spell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Microbenchmarks for the Trie and SpellCorrector hot paths, run in the same way JMH would:
+ * each benchmark gets warmup iterations to let the JIT settle, then timed iterations that
+ * report throughput and the bytes allocated per operation (the figure JMH's gc profiler
+ * reports as gc.alloc.rate.norm). All inputs come from fixed seeds, so runs are reproducible.
+ * This class is not used by the passoff program.
+ *
+ * USAGE: java spell.BenchmarkSuite [benchmark-name-filter]
+ */
+public class BenchmarkSuite {
+
+    private static final int WORD_COUNT = 100000;
+    private static final int INPUT_COUNT = 200;
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 1000000000L;
+    private static final long SEED = 240;
+
+    //Results are folded in here so the JIT cannot drop the work that produced them
+    static volatile long sink;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * One benchmark. <code>run</code> performs the operations being counted once and returns
+     * something derived from their results.
+     */
+    private interface Case {
+        long run();
+    }
+
+    public static void main(String[] args) {
+        try {
+            String filter = args.length > 0 ? args[0] : "";
+            File dictionaryFile = Benchmark.generateDictionary(WORD_COUNT, SEED);
+            List<String> words = BatchCorrector.readWords(dictionaryFile);
+            SpellCorrector spellCorrector = new SpellCorrector();
+            spellCorrector.useDictionary(dictionaryFile.getPath());
+            Trie trie = spellCorrector.loaded.trie;
+            SpellCorrector other = new SpellCorrector(SpellCorrector.LookupMode.TRIE_SEARCH);
+            other.useDictionary(dictionaryFile.getPath());
+            Trie equalTrie = other.loaded.trie;
+
+            String[] hits = sample(trie.toString().split("\n"), INPUT_COUNT, SEED);
+            String[] misses = missing(trie, INPUT_COUNT);
+            List<List<String>> byDistance = inputsByDistance(spellCorrector);
+
+            System.out.printf("%-32s %16s %12s %16s%n", "Benchmark", "ops/s", "error", "B/op");
+            run(filter, "Trie.add", words.size(), () -> {
+                Trie t = new Trie();
+                for (String word : words) {
+                    t.add(word);
+                }
+                return t.getNodeCount();
+            });
+            run(filter, "Trie.find.hit", hits.length, () -> {
+                long found = 0;
+                for (String word : hits) {
+                    found += trie.find(word).getValue();
+                }
+                return found;
+            });
+            run(filter, "Trie.find.miss", misses.length, () -> {
+                long found = 0;
+                for (String word : misses) {
+                    if (trie.find(word) != null) {
+                        found++;
+                    }
+                }
+                return found;
+            });
+            String[] names = {"distance0", "distance1", "distance2", "noMatch"};
+            SpellCorrector variants = new SpellCorrector(SpellCorrector.LookupMode.VARIANTS);
+            variants.useDictionary(dictionaryFile.getPath());
+            for (SpellCorrector corrector : new SpellCorrector[]{spellCorrector, other, variants}) {
+                SpellCorrector.LookupMode mode = corrector.lookupMode;
+                for (int d = 0; d < names.length; d++) {
+                    List<String> inputs = byDistance.get(d);
+                    run(filter, "suggest." + mode + "." + names[d], inputs.size(), () -> {
+                        long length = 0;
+                        for (String input : inputs) {
+                            String suggestion = corrector.suggestSimilarWord(input);
+                            length += suggestion == null ? 0 : suggestion.length();
+                        }
+                        return length;
+                    });
+                }
+            }
+            run(filter, "Trie.toString", 1, () -> trie.toString().length());
+            Writer discard = new DiscardWriter();
+            run(filter, "Trie.writeTo", 1, () -> {
+                try {
+                    trie.writeTo(discard);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                return trie.getWordCount();
+            });
+            run(filter, "Trie.wordsWithPrefix", hits.length, () -> {
+                long count = 0;
+                for (String word : hits) {
+                    for (String match : trie.wordsWithPrefix(word.substring(0, Math.min(3, word.length())))) {
+                        count += match.length();
+                    }
+                }
+                return count;
+            });
+            run(filter, "Trie.equals", 1, () -> trie.equals(equalTrie) ? 1 : 0);
+            //Same counts, one frequency apart, so only the structural hash tells them apart quickly
+            Trie differentTrie = equalTrie.withDeltas(Collections.singletonMap(hits[0], 1));
+            run(filter, "Trie.equals.different", 1, () -> trie.equals(differentTrie) ? 1 : 0);
+        } catch (IOException ex) {
+            System.out.println("Error");
+            ex.printStackTrace();
+        }
+    }
+
+    private static void run(String filter, String name, int operations, Case benchmark) {
+        if (!name.contains(filter) || operations == 0) {
+            return;
+        }
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(operations, benchmark);
+        }
+        double[] throughput = new double[MEASUREMENT_ITERATIONS];
+        double bytesPerOperation = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            double[] result = iteration(operations, benchmark);
+            throughput[i] = result[0];
+            bytesPerOperation += result[1] / MEASUREMENT_ITERATIONS;
+        }
+        double mean = 0;
+        for (double value : throughput) {
+            mean += value / throughput.length;
+        }
+        double variance = 0;
+        for (double value : throughput) {
+            variance += (value - mean) * (value - mean) / Math.max(1, throughput.length - 1);
+        }
+        System.out.printf("%-32s %16.1f %12.1f %16.1f%n", name, mean, Math.sqrt(variance), bytesPerOperation);
+    }
+
+    /**
+     * Runs the benchmark repeatedly for about ITERATION_NANOS.
+     *
+     * @return Operations per second and bytes allocated per operation
+     */
+    private static double[] iteration(int operations, Case benchmark) {
+        long thread = Thread.currentThread().getId();
+        long calls = 0;
+        long result = 0;
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            result += benchmark.run();
+            calls++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+        sink += result;
+        double totalOperations = (double) calls * operations;
+        return new double[]{totalOperations / (elapsed / 1e9), allocated / totalOperations};
+    }
+
+    private static String[] sample(String[] words, int count, long seed) {
+        Random random = new Random(seed);
+        String[] sample = new String[count];
+        for (int i = 0; i < count; i++) {
+            sample[i] = words[random.nextInt(words.length)];
+        }
+        return sample;
+    }
+
+    /**
+     * Random words that are not in the trie.
+     */
+    private static String[] missing(Trie trie, int count) {
+        Random random = new Random(SEED);
+        String[] result = new String[count];
+        int found = 0;
+        while (found < count) {
+            char[] chars = new char[3 + random.nextInt(8)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) ('a' + random.nextInt(26));
+            }
+            String word = new String(chars);
+            if (trie.find(word) == null) {
+                result[found++] = word;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Misspellings sorted by how far their suggestion is: 0, 1, 2, and no suggestion.
+     */
+    private static List<List<String>> inputsByDistance(SpellCorrector spellCorrector) {
+        List<List<String>> byDistance = new ArrayList<>();
+        for (int d = 0; d < 4; d++) {
+            byDistance.add(new ArrayList<>());
+        }
+        for (String input : Benchmark.misspellings(spellCorrector.loaded.trie, 20 * INPUT_COUNT, SEED)) {
+            String suggestion = spellCorrector.suggestSimilarWord(input);
+            int d = 3;
+            if (suggestion != null) {
+                d = DeleteIndex.distance(input, suggestion, DeleteIndex.MAX_DISTANCE);
+            }
+            if (byDistance.get(d).size() < INPUT_COUNT) {
+                byDistance.get(d).add(input);
+            }
+        }
+        return byDistance;
+    }
+
+    /**
+     * Throws away everything written to it, so Trie.writeTo is timed without any output.
+     */
+    private static class DiscardWriter extends Writer {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
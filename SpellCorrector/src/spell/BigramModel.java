@@ -0,0 +1,113 @@
+package spell;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts of how often each word follows each other word in a corpus, used to choose between
+ * corrections that are equally close to a misspelling. Every word gets a number, and each
+ * pair of numbers is packed into one long key of a <code>LongIntHashMap</code>, so a bigram
+ * costs about 16 bytes and looking one up is a single probe with no allocation.
+ */
+public class BigramModel {
+
+    //Numbers start at 1, so no packed pair is 0
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final LongIntHashMap counts;
+
+    public BigramModel() {
+        this(1024);
+    }
+
+    public BigramModel(int expectedBigrams) {
+        counts = new LongIntHashMap(expectedBigrams);
+    }
+
+    /**
+     * Counts every pair of neighbouring words in a text file, reading the same words as
+     * <code>SpellCorrector.useDictionary</code> (tokens it rejects are skipped, so the words
+     * either side of one count as neighbours).
+     *
+     * @param file The corpus
+     * @param unicode Whether to read UTF-8 words of any script, as <code>WordReader</code> does
+     * @throws IOException If the file cannot be read
+     */
+    public static BigramModel fromCorpus(File file, boolean unicode) throws IOException {
+        BigramModel model = new BigramModel();
+        try (WordReader reader = new WordReader(file, unicode)) {
+            String previous = reader.next();
+            String word;
+            while (previous != null && (word = reader.next()) != null) {
+                model.add(previous, word);
+                previous = word;
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Counts one occurrence of <code>word</code> following <code>previous</code>.
+     */
+    public void add(String previous, String word) {
+        counts.addTo(key(number(previous), number(word)), 1);
+    }
+
+    /**
+     * Returns how often <code>word</code> followed <code>previous</code>
+     */
+    public int count(String previous, String word) {
+        return count(id(previous), word);
+    }
+
+    /**
+     * Same as above with the previous word's number, looked up once for many candidates.
+     */
+    int count(int previousId, String word) {
+        if (previousId == 0) {
+            return 0;
+        }
+        int id = id(word);
+        return id == 0 ? 0 : counts.get(key(previousId, id));
+    }
+
+    /**
+     * Returns the number of a (lower case) word, or 0 if it is not in the corpus
+     */
+    int id(String word) {
+        Integer id = ids.get(word);
+        return id == null ? 0 : id;
+    }
+
+    private int number(String word) {
+        Integer id = ids.get(word);
+        if (id == null) {
+            id = ids.size() + 1;
+            ids.put(word, id);
+        }
+        return id;
+    }
+
+    private static long key(int previousId, int id) {
+        return ((long) previousId << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the number of distinct bigrams
+     */
+    public int size() {
+        return counts.size();
+    }
+
+    public int getVocabularySize() {
+        return ids.size();
+    }
+
+    /**
+     * Estimated heap bytes used by the bigram table (the word numbers are not counted).
+     */
+    public long getMemoryFootprint() {
+        return counts.getMemoryFootprint();
+    }
+}
@@ -0,0 +1,60 @@
+package spell;
+
+/**
+ * Walks the trie like <code>TrieSearch</code>, but breaks ties between the words at the
+ * smallest distance by how often each followed the previous word, before frequency and
+ * alphabetical order.
+ */
+public class BigramSearch extends TrieSearch {
+
+    private final BigramModel bigrams;
+    private final int previousId;
+    //Best word so far at each distance, with its bigram count and frequency
+    private final String[] bestWords;
+    private final int[] bestBigrams;
+    private final int[] bestFrequencies;
+
+    /**
+     * @param previousId The previous word's number in <code>bigrams</code>
+     */
+    BigramSearch(String input, int maxDistance, BigramModel bigrams, int previousId) {
+        super(input, maxDistance);
+        this.bigrams = bigrams;
+        this.previousId = previousId;
+        bestWords = new String[maxDistance + 1];
+        bestBigrams = new int[maxDistance + 1];
+        bestFrequencies = new int[maxDistance + 1];
+    }
+
+    /**
+     * Finds the word at the smallest distance that most often followed the previous word,
+     * then the most frequent, then the first alphabetically.
+     *
+     * @param trie The dictionary to search
+     * @return The best word, or null if none is within the distance
+     */
+    public String search(ITrie trie) {
+        walk(trie);
+        for (String word : bestWords) {
+            if (word != null) {
+                return word;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    void found(int length, int distance, int frequency) {
+        String word = new String(path, 0, length);
+        int bigram = bigrams.count(previousId, word);
+        //Words are found in alphabetical order, so only a strictly better word replaces one
+        if (bestWords[distance] == null || bigram > bestBigrams[distance]
+                || (bigram == bestBigrams[distance] && frequency > bestFrequencies[distance])) {
+            bestWords[distance] = word;
+            bestBigrams[distance] = bigram;
+            bestFrequencies[distance] = frequency;
+        }
+        //Words further away than one we already have can never be suggested
+        limit = distance;
+    }
+}
@@ -0,0 +1,87 @@
+package spell;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays a Zipfian stream of misspellings through SpellCorrector with no cache, an LRU cache
+ * and a W-TinyLFU cache, and reports throughput and hit rates. This class is not used by the
+ * passoff program.
+ *
+ * USAGE: java spell.CacheBenchmark [dictionary-file]
+ */
+public class CacheBenchmark {
+
+    private static final int WORD_COUNT = 200000;
+    private static final int DISTINCT_INPUTS = 50000;
+    private static final int LOOKUP_COUNT = 200000;
+    private static final int CACHE_SIZE = 1000;
+    private static final long SEED = 240;
+
+    public static void main(String[] args) {
+        try {
+            String dictionaryFileName;
+            if (args.length > 0) {
+                dictionaryFileName = args[0];
+            } else {
+                dictionaryFileName = Benchmark.generateDictionary(WORD_COUNT, SEED).getPath();
+            }
+            SpellCorrector spellCorrector = new SpellCorrector();
+            spellCorrector.useDictionary(dictionaryFileName);
+            String[] stream = zipfStream(Benchmark.misspellings(spellCorrector.loaded.trie, DISTINCT_INPUTS, SEED));
+
+            String[] expected = new String[stream.length];
+            long start = System.nanoTime();
+            for (int i = 0; i < stream.length; i++) {
+                expected[i] = spellCorrector.suggestSimilarWord(stream[i]);
+            }
+            Benchmark.report("No cache", stream.length, System.nanoTime() - start);
+
+            for (CorrectionCache.Policy policy : CorrectionCache.Policy.values()) {
+                CorrectionCache cache = new CorrectionCache(CACHE_SIZE, policy);
+                spellCorrector.setCache(cache);
+                start = System.nanoTime();
+                for (int i = 0; i < stream.length; i++) {
+                    String actual = spellCorrector.suggestSimilarWord(stream[i]);
+                    if (expected[i] == null ? actual != null : !expected[i].equals(actual)) {
+                        System.out.println(policy + " mismatch for " + stream[i]);
+                    }
+                }
+                Benchmark.report(policy.toString(), stream.length, System.nanoTime() - start);
+                System.out.println(cache + String.format(", %.1f%% hit rate", 100 * cache.getHitRate()));
+            }
+
+            //Reloading the dictionary must empty the cache
+            spellCorrector.useDictionary(dictionaryFileName);
+            System.out.println("Size after reload: " + spellCorrector.getCache().size());
+        } catch (IOException ex) {
+            System.out.println("Error");
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Draws LOOKUP_COUNT inputs, where the input of rank r is drawn with probability
+     * proportional to 1 / r.
+     */
+    private static String[] zipfStream(List<String> inputs) {
+        double[] cumulative = new double[inputs.size()];
+        double total = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+        Random random = new Random(SEED);
+        String[] stream = new String[LOOKUP_COUNT];
+        for (int i = 0; i < stream.length; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            if (rank < 0) {
+                rank = -rank - 1;
+            }
+            stream[i] = inputs.get(Math.min(rank, inputs.size() - 1));
+        }
+        return stream;
+    }
+}
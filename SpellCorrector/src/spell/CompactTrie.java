@@ -0,0 +1,83 @@
+package spell;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * A read-only trie packed into flat heap arrays, built from a loaded <code>Trie</code>.
+ * See <code>PackedTrie</code> for the layout. A node costs 10 bytes instead of a
+ * <code>TrieNode</code> with its slot array, and labels can be any letter of the trie's alphabet.
+ */
+public class CompactTrie extends PackedTrie {
+    int wordCount;
+    int nodeCount;
+    //Has nodeCount + 1 entries so the last node's children end at firstChild[nodeCount]
+    int[] firstChild;
+    char[] labels;
+    int[] frequencies;
+
+    public CompactTrie(Trie trie) {
+        wordCount = trie.getWordCount();
+        nodeCount = trie.getNodeCount();
+        firstChild = new int[nodeCount + 1];
+        labels = new char[nodeCount];
+        frequencies = new int[nodeCount];
+
+        Queue<TrieNode> queue = new ArrayDeque<>();
+        queue.add(trie.root);
+        int node = 0;
+        int next = 1; //Number given to the next child we see
+        while (!queue.isEmpty()) {
+            TrieNode current = queue.remove();
+            frequencies[node] = current.frequencyCount;
+            firstChild[node] = next;
+            for (int i = 0; i < current.letters.length; i++) {
+                if (current.letters[i] != null) {
+                    labels[next] = current.letter(i, trie.alphabet);
+                    next++;
+                    queue.add(current.letters[i]);
+                }
+            }
+            node++;
+        }
+        firstChild[nodeCount] = next;
+    }
+
+    int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    char label(int node) {
+        return labels[node];
+    }
+
+    int frequency(int node) {
+        return frequencies[node];
+    }
+
+    /**
+     * Returns the number of unique words in the trie
+     *
+     * @return The number of unique words in the trie
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Returns the number of nodes in the trie
+     *
+     * @return The number of nodes in the trie
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Estimated heap bytes used by the packed arrays.
+     */
+    public long getMemoryFootprint() {
+        return MemoryFootprint.intArray(firstChild.length) + MemoryFootprint.charArray(labels.length)
+                + MemoryFootprint.intArray(frequencies.length) + MemoryFootprint.OBJECT_HEADER + 2 * 4 + 3 * 4;
+    }
+}
@@ -0,0 +1,161 @@
+package spell;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Trie that can be added to and searched from many threads at once, so word frequencies
+ * can be learned while suggestions are being served.
+ * Children are created with compareAndSet, so two threads adding the same new word agree on
+ * one node, and frequency counts are incremented atomically. <code>find</code> takes no lock.
+ * <p>
+ * <code>toString</code>, <code>equals</code> and <code>hashCode</code> need a snapshot that no
+ * add is halfway through. An add creates every node on its word's path before it counts the
+ * word, so the copy leaves out the nodes with no counted word below them, and takes its counts
+ * from what it copied. Adds write nothing shared for the snapshot's sake and never wait for
+ * it. An add racing with a snapshot is either wholly in it or not at all, but the snapshot is
+ * not of a single instant: of two racing adds, the later one may be in it without the other.
+ * <p>
+ * Like <code>Trie</code>, it holds the letters of an <code>Alphabet</code>, a to z by default.
+ * A <code>SpellCorrector</code> serves the learned words once a snapshot is handed to its
+ * <code>useTrie</code>.
+ */
+public class ConcurrentTrie implements ITrie {
+    private final LongAdder wordCount;
+    private final LongAdder nodeCount;
+    private final ConcurrentTrieNode root;
+    //The letters words may use
+    private final Alphabet alphabet;
+
+    public ConcurrentTrie() {
+        this(Alphabet.ASCII);
+    }
+
+    public ConcurrentTrie(Alphabet alphabet) {
+        this.alphabet = alphabet;
+        wordCount = new LongAdder();
+        nodeCount = new LongAdder();
+        nodeCount.increment();
+        root = new ConcurrentTrieNode(alphabet);
+    }
+
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * Adds the specified word to the trie (if necessary) and increments the word's frequency count
+     *
+     * @param word The word being added to the trie
+     * @throws IllegalArgumentException If the word uses a letter outside the trie's alphabet
+     */
+    public void add(String word) {
+        word = word.toLowerCase();
+        //Checked first, so a bad word leaves no nodes behind
+        for (int i = 0; i < word.length(); i++) {
+            if (!alphabet.contains(word.charAt(i))) {
+                throw new IllegalArgumentException("'" + word.charAt(i) + "' is not in the alphabet of the trie");
+            }
+        }
+        boolean[] created = new boolean[1];
+        ConcurrentTrieNode node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.child(word.charAt(i), alphabet, created);
+            if (created[0]) {
+                nodeCount.increment();
+            }
+        }
+        if (node.increment() == 0) //This thread made the word unique, so it counts it
+        {
+            wordCount.increment();
+        }
+    }
+
+    /**
+     * Searches the trie for the specified word
+     *
+     * @param word The word being searched for
+     *
+     * @return A reference to the trie node that represents the word,
+     * 			or null if the word is not in the trie
+     */
+    public ITrie.INode find(String word) {
+        word = word.toLowerCase();
+        ConcurrentTrieNode node = root;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (!alphabet.contains(c)) {
+                return null;
+            }
+            node = node.get(c, alphabet);
+            if (node == null) {
+                return null;
+            }
+        }
+        if (node.frequencyCount == 0) {
+            return null;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the number of unique words in the trie
+     *
+     * @return The number of unique words in the trie
+     */
+    public int getWordCount() {
+        return wordCount.intValue();
+    }
+
+    /**
+     * Returns the number of nodes in the trie
+     *
+     * @return The number of nodes in the trie
+     */
+    public int getNodeCount() {
+        return nodeCount.intValue();
+    }
+
+    /**
+     * Copies the trie, with only the words whose adds have finished, into a plain Trie.
+     */
+    public Trie snapshot() {
+        Trie trie = new Trie(alphabet);
+        int[] counts = new int[2];
+        TrieNode copy = root.copy(alphabet, counts);
+        if (copy != null) {
+            trie.root = copy;
+        } else {
+            counts[0]++; //The new Trie's empty root
+        }
+        trie.nodeCount = counts[0];
+        trie.wordCount = counts[1];
+        return trie;
+    }
+
+    /**
+     * The toString specification is as follows:
+     * For each word, in alphabetical order:
+     * <word>\n
+     */
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return snapshot().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        if (o == this) {
+            return true;
+        }
+        ConcurrentTrie trie = (ConcurrentTrie) o;
+        return this.snapshot().equals(trie.snapshot());
+    }
+}
@@ -0,0 +1,126 @@
+package spell;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class ConcurrentTrieNode implements ITrie.INode {
+
+    private static final AtomicIntegerFieldUpdater<ConcurrentTrieNode> FREQUENCY =
+            AtomicIntegerFieldUpdater.newUpdater(ConcurrentTrieNode.class, "frequencyCount");
+
+    volatile int frequencyCount;
+    //Dense nodes: one slot per letter of the alphabet, indexed by ordinal; null for sparse nodes
+    final AtomicReferenceArray<ConcurrentTrieNode> letters;
+    //Sparse nodes, for large alphabets: only the children, sorted by letter; null for dense nodes
+    final ConcurrentSkipListMap<Character, ConcurrentTrieNode> children;
+
+    public ConcurrentTrieNode() {
+        this(Alphabet.ASCII);
+    }
+
+    public ConcurrentTrieNode(Alphabet alphabet) {
+        frequencyCount = 0;
+        if (alphabet.isDense()) {
+            letters = new AtomicReferenceArray<>(alphabet.size());
+            children = null;
+        } else {
+            letters = null;
+            children = new ConcurrentSkipListMap<>();
+        }
+    }
+
+    /**
+     * Returns the frequency count for the word represented by the node
+     *
+     * @return The frequency count for the word represented by the node
+     */
+    public int getValue() {
+        return frequencyCount;
+    }
+
+    /**
+     * Returns the child reached by <code>c</code>, or null. <code>c</code> must be in the alphabet.
+     */
+    ConcurrentTrieNode get(char c, Alphabet alphabet) {
+        if (letters != null) {
+            return letters.get(alphabet.ordinal(c));
+        }
+        return children.get(c);
+    }
+
+    /**
+     * Returns the child reached by <code>c</code>, which must be in the alphabet, creating it
+     * if no other thread has yet.
+     *
+     * @param created Set to true if this call created the child
+     */
+    ConcurrentTrieNode child(char c, Alphabet alphabet, boolean[] created) {
+        ConcurrentTrieNode child = get(c, alphabet);
+        if (child != null) {
+            created[0] = false;
+            return child;
+        }
+        ConcurrentTrieNode newChild = new ConcurrentTrieNode(alphabet);
+        if (letters != null) {
+            int index = alphabet.ordinal(c);
+            if (letters.compareAndSet(index, null, newChild)) {
+                created[0] = true;
+                return newChild;
+            }
+            //Another thread won the race, so use its node
+            created[0] = false;
+            return letters.get(index);
+        }
+        ConcurrentTrieNode winner = children.putIfAbsent(c, newChild);
+        created[0] = winner == null;
+        return winner == null ? newChild : winner;
+    }
+
+    /**
+     * Atomically adds one to the frequency count and returns the count before the increment.
+     */
+    int increment() {
+        return FREQUENCY.getAndIncrement(this);
+    }
+
+    /**
+     * Copies this node and everything below it into a plain TrieNode, leaving out the nodes
+     * that have no counted word below them yet, since their adds have not finished.
+     *
+     * @param counts The nodes and words copied are added to counts[0] and counts[1]
+     * @return The copy, or null if there is no counted word here or below
+     */
+    TrieNode copy(Alphabet alphabet, int[] counts) {
+        TrieNode node = alphabet.isDense() ? new TrieNode(alphabet.size()) : TrieNode.sparse();
+        node.frequencyCount = frequencyCount;
+        boolean hasWords = node.frequencyCount > 0;
+        if (letters != null) {
+            for (int i = 0; i < letters.length(); i++) {
+                ConcurrentTrieNode child = letters.get(i);
+                if (child != null) {
+                    node.letters[i] = child.copy(alphabet, counts);
+                    hasWords |= node.letters[i] != null;
+                }
+            }
+        } else {
+            //In letter order, so each child goes on the end of the sparse node's arrays
+            for (Map.Entry<Character, ConcurrentTrieNode> child : children.entrySet()) {
+                TrieNode copy = child.getValue().copy(alphabet, counts);
+                if (copy != null) {
+                    node.setChild(child.getKey(), copy, alphabet);
+                    hasWords = true;
+                }
+            }
+        }
+        if (!hasWords) {
+            return null;
+        }
+        counts[0]++;
+        if (node.frequencyCount > 0) {
+            counts[1]++;
+        }
+        return node;
+    }
+}
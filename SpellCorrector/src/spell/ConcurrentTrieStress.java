@@ -0,0 +1,147 @@
+package spell;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-threaded stress and throughput test for ConcurrentTrie. Writer threads add words
+ * while reader threads look words up and take snapshots; every snapshot must be internally
+ * consistent, and the final trie must equal one built by a single thread. This class is not
+ * used by the passoff program.
+ *
+ * USAGE: java spell.ConcurrentTrieStress [writer-threads] [reader-threads]
+ */
+public class ConcurrentTrieStress {
+
+    private static final int DISTINCT_WORDS = 50000;
+    private static final int ADDS_PER_WRITER = 500000;
+    private static final long SEED = 240;
+
+    public static void main(String[] args) throws InterruptedException {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        String[] words = randomWords(DISTINCT_WORDS, SEED);
+
+        ConcurrentTrie concurrentTrie = new ConcurrentTrie();
+        Trie expected = new Trie();
+        List<String[]> work = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            Random random = new Random(SEED + w);
+            String[] adds = new String[ADDS_PER_WRITER];
+            for (int i = 0; i < adds.length; i++) {
+                adds[i] = words[random.nextInt(words.length)];
+                expected.add(adds[i]);
+            }
+            work.add(adds);
+        }
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong finds = new AtomicLong();
+        AtomicLong snapshots = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        List<Thread> writerThreads = new ArrayList<>();
+        List<Thread> readerThreads = new ArrayList<>();
+        for (String[] adds : work) {
+            writerThreads.add(new Thread(() -> {
+                for (String word : adds) {
+                    concurrentTrie.add(word);
+                }
+            }));
+        }
+        for (int r = 0; r < readers; r++) {
+            Random random = new Random(SEED - r);
+            readerThreads.add(new Thread(() -> {
+                long count = 0;
+                while (writing.get()) {
+                    ITrie.INode node = concurrentTrie.find(words[random.nextInt(words.length)]);
+                    if (node != null && node.getValue() <= 0) {
+                        failures.incrementAndGet();
+                    }
+                    count++;
+                    if (count % 100000 == 0) {
+                        Trie snapshot = concurrentTrie.snapshot();
+                        if (!consistent(snapshot)) {
+                            failures.incrementAndGet();
+                        }
+                        snapshots.incrementAndGet();
+                    }
+                }
+                finds.addAndGet(count);
+            }));
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : readerThreads) {
+            thread.start();
+        }
+        for (Thread thread : writerThreads) {
+            thread.start();
+        }
+        for (Thread thread : writerThreads) {
+            thread.join();
+        }
+        long nanos = System.nanoTime() - start;
+        writing.set(false);
+        for (Thread thread : readerThreads) {
+            thread.join();
+        }
+
+        System.out.println(writers + " writers, " + readers + " readers");
+        Benchmark.report("Add", (long) writers * ADDS_PER_WRITER, nanos, "adds");
+        Benchmark.report("Find", finds.get(), nanos, "finds");
+        System.out.println("Snapshots: " + snapshots.get());
+        System.out.println("Inconsistent reads: " + failures.get());
+        System.out.println("Word Count: " + concurrentTrie.getWordCount() + " (expected " + expected.getWordCount() + ")");
+        System.out.println("Node Count: " + concurrentTrie.getNodeCount() + " (expected " + expected.getNodeCount() + ")");
+        System.out.println("Equal to sequential build: " + concurrentTrie.snapshot().equals(expected));
+    }
+
+    /**
+     * Checks that a snapshot's counts match the nodes and words it actually holds, and that
+     * every leaf below the root is a word, as it would be if no add were halfway through.
+     */
+    private static boolean consistent(Trie trie) {
+        int[] counts = new int[3];
+        count(trie.root, counts);
+        return counts[0] == trie.getNodeCount() && counts[1] == trie.getWordCount() && counts[2] == 0;
+    }
+
+    /**
+     * Adds the nodes, words and leaves that are not words under node to counts[0], counts[1]
+     * and counts[2].
+     */
+    private static void count(TrieNode node, int[] counts) {
+        counts[0]++;
+        if (node.frequencyCount > 0) {
+            counts[1]++;
+        }
+        boolean leaf = true;
+        for (TrieNode child : node.letters) {
+            if (child != null) {
+                count(child, counts);
+                leaf = false;
+            }
+        }
+        //Only the root is counted when counts[0] is 1, and an empty trie's root is a leaf
+        if (leaf && node.frequencyCount == 0 && counts[0] > 1) {
+            counts[2]++;
+        }
+    }
+
+    private static String[] randomWords(int count, long seed) {
+        Random random = new Random(seed);
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = 2 + random.nextInt(9);
+            char[] chars = new char[length];
+            for (int j = 0; j < length; j++) {
+                chars[j] = (char) ('a' + random.nextInt(26));
+            }
+            words[i] = new String(chars);
+        }
+        return words;
+    }
+}
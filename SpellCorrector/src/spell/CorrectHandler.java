@@ -0,0 +1,114 @@
+package spell;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Handles a /correct request from the CorrectionServer.
+ * <p>
+ * <code>GET /correct?word=teh</code> answers with the suggestion as plain text, or 404 and
+ * "No similar word found". <code>POST /correct</code> takes a batch of whitespace separated
+ * words as the body and answers with one line per word: the word, a tab, and its suggestion
+ * (empty if there is none), in the same order. Each word of a batch is corrected with the
+ * word before it as context, which matters if the corrector has a bigram model.
+ */
+public class CorrectHandler implements HttpHandler {
+
+    private final SpellCorrector corrector;
+    private final LatencyHistogram singleLatency;
+    private final LatencyHistogram batchLatency;
+
+    public CorrectHandler(SpellCorrector corrector, LatencyHistogram singleLatency, LatencyHistogram batchLatency) {
+        this.corrector = corrector;
+        this.singleLatency = singleLatency;
+        this.batchLatency = batchLatency;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            String method = exchange.getRequestMethod().toLowerCase();
+            if (method.equals("get")) {
+                String word = queryParameter(exchange.getRequestURI().getRawQuery(), "word");
+                if (word == null || word.isEmpty()) {
+                    send(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "Missing word parameter\n");
+                    return;
+                }
+                String suggestion = corrector.suggestSimilarWord(word);
+                if (suggestion == null) {
+                    send(exchange, HttpURLConnection.HTTP_NOT_FOUND, "No similar word found\n");
+                } else {
+                    send(exchange, HttpURLConnection.HTTP_OK, suggestion + "\n");
+                }
+                singleLatency.record(System.nanoTime() - start);
+            } else if (method.equals("post")) {
+                String body = readBody(exchange.getRequestBody()).trim();
+                List<String> words = body.isEmpty() ? Collections.emptyList() : Arrays.asList(body.split("\\s+"));
+                List<String> suggestions = corrector.suggestSimilarWords(words);
+                StringBuilder output = new StringBuilder();
+                for (int i = 0; i < words.size(); i++) {
+                    output.append(words.get(i)).append('\t');
+                    if (suggestions.get(i) != null) {
+                        output.append(suggestions.get(i));
+                    }
+                    output.append('\n');
+                }
+                send(exchange, HttpURLConnection.HTTP_OK, output.toString());
+                batchLatency.record(System.nanoTime() - start);
+            } else {
+                send(exchange, HttpURLConnection.HTTP_BAD_METHOD, "Use GET or POST\n");
+            }
+        } catch (Exception ex) {
+            // Some kind of internal error has occurred inside the server (not the
+            // client's fault), so we return an "internal server error" status code
+            // to the client.
+            ex.printStackTrace();
+            send(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, "Internal error\n");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Returns the decoded value of <code>name</code> in a raw query string, or null.
+     */
+    static String queryParameter(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            if (URLDecoder.decode(key, StandardCharsets.UTF_8).equals(name)) {
+                return equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static String readBody(InputStream body) throws IOException {
+        try (InputStream input = body) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    static void send(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
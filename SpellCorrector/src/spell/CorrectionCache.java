@@ -0,0 +1,254 @@
+package spell;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A bounded, thread-safe cache of corrections, including words with no suggestion.
+ * <p>
+ * <code>LRU</code> evicts the least recently used word. <code>TINY_LFU</code> is a W-TinyLFU
+ * cache: new words go through a small LRU window, and a word leaving the window only replaces
+ * the main area's least recently used word if a frequency sketch says it has been asked for
+ * more often. That keeps the popular misspellings of a Zipfian stream cached even when a burst
+ * of one-off words passes through.
+ */
+public class CorrectionCache {
+
+    public enum Policy {
+        LRU,
+        TINY_LFU
+    }
+
+    //Stored for words with no similar word, since the maps cannot tell null from missing
+    private static final String NO_SUGGESTION = new String("");
+
+    private final int maximumSize;
+    private final Policy policy;
+    //All of the cache for LRU, the main area for TINY_LFU
+    private final LinkedHashMap<String, String> main;
+    private final int mainSize;
+    //Only used by TINY_LFU
+    private final LinkedHashMap<String, String> window;
+    private final int windowSize;
+    private final FrequencySketch sketch;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    //Bumped by clear, so a correction worked out against an old dictionary is not cached
+    private long generation;
+
+    public CorrectionCache(int maximumSize, Policy policy) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1");
+        }
+        this.maximumSize = maximumSize;
+        this.policy = policy;
+        if (policy == Policy.TINY_LFU && maximumSize > 1) {
+            windowSize = Math.max(1, maximumSize / 100);
+            sketch = new FrequencySketch(maximumSize);
+        } else {
+            windowSize = 0;
+            sketch = null;
+        }
+        mainSize = maximumSize - windowSize;
+        main = new LinkedHashMap<>(16, 0.75f, true);
+        window = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the cached correction of <code>word</code>, or works it out with
+     * <code>corrector</code> and caches it. The correction runs outside the cache's lock, so
+     * two threads missing on the same word may both run it.
+     *
+     * @param word The (lower case) word being corrected
+     * @param corrector Finds the correction on a miss; may return null
+     * @return The correction, or null if there is no similar word
+     */
+    public String get(String word, Function<String, String> corrector) {
+        long startGeneration;
+        synchronized (this) {
+            startGeneration = generation;
+            if (sketch != null) {
+                sketch.increment(word);
+            }
+            String cached = main.get(word);
+            if (cached == null) {
+                cached = window.get(word);
+            }
+            if (cached != null) {
+                hits++;
+                return cached == NO_SUGGESTION ? null : cached;
+            }
+            misses++;
+        }
+        String correction = corrector.apply(word);
+        synchronized (this) {
+            if (generation == startGeneration) {
+                put(word, correction == null ? NO_SUGGESTION : correction);
+            }
+        }
+        return correction;
+    }
+
+    private void put(String word, String correction) {
+        if (main.containsKey(word) || window.containsKey(word)) {
+            return; //Another thread got here first
+        }
+        if (sketch == null) {
+            main.put(word, correction);
+            if (main.size() > mainSize) {
+                removeEldest(main);
+                evictions++;
+            }
+            return;
+        }
+        window.put(word, correction);
+        if (window.size() <= windowSize) {
+            return;
+        }
+        //The word leaving the window competes with the main area's victim
+        Map.Entry<String, String> candidate = removeEldest(window);
+        if (main.size() < mainSize) {
+            main.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        String victim = main.keySet().iterator().next();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+            main.remove(victim);
+            main.put(candidate.getKey(), candidate.getValue());
+        }
+        evictions++;
+    }
+
+    private static Map.Entry<String, String> removeEldest(LinkedHashMap<String, String> map) {
+        Iterator<Map.Entry<String, String>> iterator = map.entrySet().iterator();
+        Map.Entry<String, String> eldest = iterator.next();
+        Map.Entry<String, String> copy = Map.entry(eldest.getKey(), eldest.getValue());
+        iterator.remove();
+        return copy;
+    }
+
+    /**
+     * Empties the cache, for when the dictionary changes. The counters are kept.
+     */
+    public synchronized void clear() {
+        generation++;
+        main.clear();
+        window.clear();
+        if (sketch != null) {
+            sketch.clear();
+        }
+    }
+
+    public synchronized int size() {
+        return main.size() + window.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return policy + " cache: " + size() + "/" + maximumSize + " words, " + hits + " hits, "
+                + misses + " misses, " + evictions + " evictions";
+    }
+
+    /**
+     * Count-min sketch of how often each word was asked for, with 4 rows of small counters.
+     * Every counter is halved once enough increments have been seen, so old popularity fades.
+     */
+    private static class FrequencySketch {
+        private static final int ROWS = 4;
+        private static final int MAXIMUM_COUNT = 15;
+
+        private final int[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maximumSize) {
+            int width = Integer.highestOneBit(Math.max(16, maximumSize) * 2 - 1);
+            counters = new int[ROWS][width];
+            mask = width - 1;
+            sampleSize = 10 * maximumSize;
+        }
+
+        void increment(String word) {
+            int hash = spread(word.hashCode());
+            boolean added = false;
+            for (int row = 0; row < ROWS; row++) {
+                int index = index(hash, row);
+                if (counters[row][index] < MAXIMUM_COUNT) {
+                    counters[row][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(String word) {
+            int hash = spread(word.hashCode());
+            int frequency = MAXIMUM_COUNT;
+            for (int row = 0; row < ROWS; row++) {
+                frequency = Math.min(frequency, counters[row][index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private void reset() {
+            for (int[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>>= 1;
+                }
+            }
+            additions /= 2;
+        }
+
+        void clear() {
+            for (int[] row : counters) {
+                Arrays.fill(row, 0);
+            }
+            additions = 0;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * (0x9E3779B9 + 2 * row + 1);
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 17;
+            hash *= 0xed5ad4bb;
+            hash ^= hash >>> 11;
+            return hash;
+        }
+    }
+}
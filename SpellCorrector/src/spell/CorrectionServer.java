@@ -0,0 +1,96 @@
+package spell;
+
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the spelling corrector as a long-lived HTTP service, so the dictionary is loaded once
+ * instead of once per word as with <code>Main</code>. This class is not used by the passoff
+ * program.
+ * <p>
+ * Requests are handled by a fixed pool of worker threads with a bounded queue. When the queue
+ * is full the thread accepting connections runs the request itself, which stops it accepting
+ * more until it is done, so a burst of clients slows down instead of piling up in memory.
+ * Connections are kept alive, so a client can send request after request on one connection.
+ * Lookup metrics are shown by /stats and, when run from <code>main</code>, over JMX.
+ *
+ * USAGE: java spell.CorrectionServer dictionary-file port [worker-threads] [bigram-corpus-file]
+ */
+public class CorrectionServer {
+
+    private static final int MAX_WAITING_CONNECTIONS = 64;
+    //Requests that may wait for a worker, per worker
+    private static final int QUEUE_PER_WORKER = 16;
+
+    private final SpellCorrector corrector;
+    private final LatencyHistogram singleLatency = new LatencyHistogram();
+    private final LatencyHistogram batchLatency = new LatencyHistogram();
+    //Set on the corrector, so /stats can show where lookups spend their time
+    private final LookupMetrics lookupMetrics = new LookupMetrics();
+    private HttpServer server;
+    private ThreadPoolExecutor workers;
+
+    public CorrectionServer(SpellCorrector corrector) {
+        this.corrector = corrector;
+        corrector.setLookupListener(lookupMetrics);
+    }
+
+    /**
+     * Starts answering requests on <code>port</code> (0 picks a free port).
+     *
+     * @return The port the server is listening on
+     */
+    public int start(int port, int workerThreads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), MAX_WAITING_CONNECTIONS);
+        workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workerThreads * QUEUE_PER_WORKER), new ThreadPoolExecutor.CallerRunsPolicy());
+        server.setExecutor(workers);
+        server.createContext("/correct", new CorrectHandler(corrector, singleLatency, batchLatency));
+        server.createContext("/stats", new StatsHandler(singleLatency, batchLatency, lookupMetrics));
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        workers.shutdown();
+    }
+
+    public LatencyHistogram getSingleLatency() {
+        return singleLatency;
+    }
+
+    public LatencyHistogram getBatchLatency() {
+        return batchLatency;
+    }
+
+    public LookupMetrics getLookupMetrics() {
+        return lookupMetrics;
+    }
+
+    public static void main(String[] args) throws IOException, JMException {
+        if (args.length < 2) {
+            System.out.println("USAGE: java spell.CorrectionServer dictionary-file port [worker-threads] [bigram-corpus-file]");
+            return;
+        }
+        int workerThreads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+        SpellCorrector corrector = new SpellCorrector();
+        System.out.println("Loading " + args[0]);
+        corrector.useDictionary(args[0]);
+        if (args.length > 3) {
+            System.out.println("Counting bigrams in " + args[3]);
+            corrector.useBigrams(args[3]);
+        }
+        CorrectionServer server = new CorrectionServer(corrector);
+        server.getLookupMetrics().register();
+        int port = server.start(Integer.parseInt(args[1]), workerThreads);
+        System.out.println("Server started on port " + port + " with " + workerThreads + " workers");
+    }
+}
@@ -0,0 +1,229 @@
+package spell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Quick checks of SpellCorrector behaviour that has gone wrong before, each on a tiny
+ * dictionary written to a temporary file. Prints every failed check and exits with status 1
+ * if there were any. This class is not used by the passoff program.
+ *
+ * USAGE: java spell.CorrectorChecks
+ */
+public class CorrectorChecks {
+
+    private static int failures;
+
+    public static void main(String[] args) throws IOException {
+        bigramsNeverSuggestFarWords();
+        snapshotsCanBeWrittenAgain();
+        contextLookupsAreTraced();
+        topKIsTheSameInEveryMode();
+        wordsSplitOnUnicodeSpaces();
+        batchesForgetOldDictionaries();
+        learnedWordsUseTheAlphabet();
+        if (failures > 0) {
+            System.out.println(failures + " checks failed");
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+    }
+
+    /**
+     * A word sharing a delete with the input can still be 3 or more edits away, and must not
+     * be suggested because it followed the previous word.
+     */
+    private static void bigramsNeverSuggestFarWords() throws IOException {
+        File dictionary = writeDictionary("the abzw");
+        for (SpellCorrector.LookupMode mode : SpellCorrector.LookupMode.values()) {
+            SpellCorrector spellCorrector = new SpellCorrector(mode);
+            spellCorrector.useDictionary(dictionary.getPath());
+            spellCorrector.useBigrams(dictionary.getPath());
+            check(mode + " suggests nothing without context", spellCorrector.suggestSimilarWord("xyab") == null);
+            check(mode + " suggests nothing with context", spellCorrector.suggestSimilarWord("xyab", "the") == null);
+            check(mode + " still ranks close words", "abzw".equals(spellCorrector.suggestSimilarWord("abz", "the")));
+        }
+    }
+
+    /**
+     * A dictionary opened from a snapshot has no Trie, so writing it again must copy the
+     * snapshot, even over the file it is mapped from. Writing a Trie over a mapped snapshot
+     * must not pull the file out from under the corrector reading it either.
+     */
+    private static void snapshotsCanBeWrittenAgain() throws IOException {
+        File dictionary = writeDictionary("apple apply ample maple the then than");
+        File first = File.createTempFile("dictionary", ".trie");
+        first.deleteOnExit();
+        File second = File.createTempFile("dictionary", ".trie");
+        second.deleteOnExit();
+        SpellCorrector original = new SpellCorrector();
+        original.useDictionary(dictionary.getPath());
+        original.writeSnapshot(first.getPath());
+        SpellCorrector mapped = new SpellCorrector();
+        mapped.useSnapshot(first.getPath());
+        mapped.writeSnapshot(second.getPath());
+        check("snapshot copy has the same size", first.length() == second.length());
+        mapped.writeSnapshot(first.getPath());
+        check("snapshot still readable after being overwritten", "apple".equals(mapped.suggestSimilarWord("appel")));
+        SpellCorrector reader = new SpellCorrector();
+        reader.useSnapshot(first.getPath());
+        SpellCorrector smaller = new SpellCorrector();
+        smaller.useDictionary(writeDictionary("the").getPath());
+        smaller.writeSnapshot(first.getPath());
+        check("snapshot still readable after a smaller Trie is written over it",
+                "apple".equals(reader.suggestSimilarWord("appel")));
+        SpellCorrector reloaded = new SpellCorrector();
+        reloaded.useSnapshot(second.getPath());
+        for (String word : new String[]{"appel", "mapel", "th", "thn", "zzzz"}) {
+            String expected = original.suggestSimilarWord(word);
+            check("snapshot of a snapshot suggests " + expected + " for " + word,
+                    Objects.equals(expected, reloaded.suggestSimilarWord(word)));
+        }
+    }
+
+    /**
+     * Lookups with a previous word, like the batches CorrectHandler takes, must reach the
+     * listener as well, and every lookup that is not a hit must count its candidates.
+     */
+    private static void contextLookupsAreTraced() throws IOException {
+        File dictionary = writeDictionary("the cat sat on the mat the cat ate");
+        for (SpellCorrector.LookupMode mode : SpellCorrector.LookupMode.values()) {
+            SpellCorrector spellCorrector = new SpellCorrector(mode);
+            spellCorrector.useDictionary(dictionary.getPath());
+            spellCorrector.useBigrams(dictionary.getPath());
+            List<LookupTrace> traces = new ArrayList<>();
+            spellCorrector.setLookupListener(traces::add);
+            List<String> suggestions = spellCorrector.suggestSimilarWords(Arrays.asList("teh", "cta", "sat"));
+            check(mode + " corrects the batch", Arrays.asList("the", "cat", "sat").equals(suggestions));
+            check(mode + " traces every word of the batch", traces.size() == 3);
+            for (LookupTrace trace : traces) {
+                boolean found = trace.getDistance() == 0;
+                check(mode + " counts the candidates for " + trace.getWord(), found || trace.getCandidates() > 0);
+            }
+            //Without a previous word only the delete index generates apart from probing
+            traces.clear();
+            spellCorrector.suggestSimilarWord("cta");
+            LookupTrace trace = traces.get(0);
+            boolean separate = mode == SpellCorrector.LookupMode.DELETE_INDEX;
+            check(mode + " says whether the phases were timed together", separate != trace.isPhasesCombined());
+            check(mode + " times generation when it is separate", !separate || trace.getGenerationNanos() > 0);
+            check(mode + " counts the candidates without a previous word", trace.getCandidates() > 0);
+        }
+    }
+
+    /**
+     * The delete index prunes far candidates before weighing them, and must still rank the
+     * same words as the trie walk, which never prunes that way.
+     */
+    private static void topKIsTheSameInEveryMode() throws IOException {
+        File dictionary = writeDictionary("the then than they them this that thin tin ten tent the then the a");
+        SpellCorrector walk = new SpellCorrector(SpellCorrector.LookupMode.TRIE_SEARCH);
+        walk.useDictionary(dictionary.getPath());
+        SpellCorrector index = new SpellCorrector(SpellCorrector.LookupMode.DELETE_INDEX);
+        index.useDictionary(dictionary.getPath());
+        for (String word : new String[]{"teh", "thn", "tne", "hte", "th", "thzzn", "tehn"}) {
+            for (int k = 1; k <= 6; k += 5) {
+                List<String> expected = walk.suggestTopK(word, k);
+                check("top " + k + " for " + word + " is " + expected, expected.equals(index.suggestTopK(word, k)));
+            }
+        }
+    }
+
+    /**
+     * Scanner splits a UTF-8 file on the Unicode spaces too, so WordReader must as well. A
+     * no-break space is not whitespace to either, so "text" and "nbsp" make one token, which
+     * is not a word.
+     */
+    private static void wordsSplitOnUnicodeSpaces() throws IOException {
+        File dictionary = writeDictionary("hello\u2003world plain\u3000text\u00a0nbsp");
+        List<String> words = new ArrayList<>();
+        try (WordReader reader = new WordReader(dictionary)) {
+            String word;
+            while ((word = reader.next()) != null) {
+                words.add(word);
+            }
+        }
+        check("words split on Unicode spaces are " + words,
+                Arrays.asList("hello", "world", "plain").equals(words));
+    }
+
+    /**
+     * A BatchCorrector remembers corrections between batches, but must not keep answering
+     * from a dictionary its corrector has replaced, and must not remember every word it sees.
+     */
+    private static void batchesForgetOldDictionaries() throws IOException {
+        SpellCorrector spellCorrector = new SpellCorrector();
+        spellCorrector.useDictionary(writeDictionary("cat").getPath());
+        BatchCorrector batchCorrector = new BatchCorrector(spellCorrector, ForkJoinPool.commonPool(), 4);
+        List<String> words = Arrays.asList("cta", "dgo", "cta", "a", "b", "c", "d", "e", "f");
+        check("batch corrects from the first dictionary",
+                Arrays.asList("cat", null).equals(batchCorrector.correct(words.stream()).subList(0, 2)));
+        check("batch memo stays bounded", batchCorrector.size() <= 4);
+        spellCorrector.useDictionary(writeDictionary("dog").getPath());
+        check("batch corrects from the reloaded dictionary",
+                Arrays.asList(null, "dog").equals(batchCorrector.correct(words.stream()).subList(0, 2)));
+    }
+
+    /**
+     * A ConcurrentTrie takes the same alphabets as a Trie, dense or sparse, and its snapshots
+     * can be served by a SpellCorrector.
+     */
+    private static void learnedWordsUseTheAlphabet() {
+        String[] words = {"caf\u00e9", "cafe", "na\u00efve", "\u00fcber", "caf\u00e9"};
+        boolean[] used = new boolean[Character.MAX_VALUE + 1];
+        for (String word : words) {
+            for (char c : word.toCharArray()) {
+                used[c] = true;
+            }
+        }
+        Alphabet dense = Alphabet.of(used);
+        //Enough CJK letters to make the nodes sparse
+        for (char c = '\u4e00'; c < '\u4e00' + Alphabet.DENSE_LIMIT; c++) {
+            used[c] = true;
+        }
+        Alphabet sparse = Alphabet.of(used);
+        for (Alphabet alphabet : new Alphabet[]{Alphabet.ASCII, dense, sparse}) {
+            String name = alphabet.isDense() ? "dense " + alphabet.size() : "sparse";
+            ConcurrentTrie learned = new ConcurrentTrie(alphabet);
+            Trie expected = new Trie(alphabet);
+            for (String word : words) {
+                try {
+                    learned.add(word);
+                    expected.add(word);
+                } catch (IllegalArgumentException ex) {
+                    check(name + " rejects " + word, expected.find(word) == null && learned.find(word) == null);
+                }
+            }
+            Trie snapshot = learned.snapshot();
+            check(name + " snapshot has the learned words", expected.equals(snapshot));
+            check(name + " snapshot counts the nodes", expected.getNodeCount() == snapshot.getNodeCount());
+            SpellCorrector spellCorrector = new SpellCorrector();
+            spellCorrector.useTrie(snapshot);
+            //The accented word was learned twice, so it wins where the alphabet has it
+            String best = alphabet == Alphabet.ASCII ? "cafe" : "caf\u00e9";
+            check(name + " corrector serves the snapshot", best.equals(spellCorrector.suggestSimilarWord("cafr")));
+        }
+    }
+
+    static File writeDictionary(String text) throws IOException {
+        File file = File.createTempFile("dictionary", ".txt");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println(text);
+        }
+        return file;
+    }
+
+    static void check(String name, boolean passed) {
+        if (!passed) {
+            System.out.println("FAILED: " + name);
+            failures++;
+        }
+    }
+}
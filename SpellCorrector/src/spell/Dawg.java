@@ -0,0 +1,369 @@
+package spell;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A read-only dictionary stored as a minimal acyclic word graph (DAWG), built from a loaded
+ * <code>Trie</code>. Trie nodes with the same words below them are merged into one state, so
+ * shared endings like "-ing" and "-ness" are stored once instead of once per word.
+ * <p>
+ * Merged states cannot hold a frequency, since different words end in them. Instead every
+ * word is numbered by its position in alphabetical order, and the frequencies are kept in
+ * that order. Each state records how many words lie below it, so a lookup works out the
+ * word's number as it walks (a minimal perfect hash) and reads the frequency from the table.
+ * <p>
+ * States and edges are stored in flat arrays: the edges of state <code>s</code> are
+ * <code>firstEdge[s]</code> up to <code>firstEdge[s + 1] - 1</code>, sorted by label.
+ */
+public class Dawg implements ITrie {
+
+    private final int wordCount;
+    private final int stateCount;
+    private final int root;
+    private final int[] firstEdge;
+    private final boolean[] isFinal;
+    private final char[] edgeLabels;
+    private final int[] edgeTargets;
+    //Number of words that come before those below the edge's target: the state's own word
+    //and the words below the edges before it
+    private final int[] edgeSkips;
+    //Frequency of each word, in alphabetical order
+    private final int[] frequencies;
+
+    public Dawg(Trie trie) {
+        Builder builder = new Builder();
+        root = builder.build(trie);
+        stateCount = builder.stateCount;
+        firstEdge = Arrays.copyOf(builder.firstEdge, stateCount + 1);
+        isFinal = Arrays.copyOf(builder.isFinal, stateCount);
+        edgeLabels = Arrays.copyOf(builder.edgeLabels, builder.edgeCount);
+        edgeTargets = Arrays.copyOf(builder.edgeTargets, builder.edgeCount);
+        edgeSkips = Arrays.copyOf(builder.edgeSkips, builder.edgeCount);
+
+        wordCount = trie.getWordCount();
+        frequencies = new int[wordCount];
+        TrieCursor cursor = new TrieCursor(trie.root, "", trie.alphabet);
+        for (int i = 0; cursor.next(); i++) {
+            frequencies[i] = cursor.frequency();
+        }
+    }
+
+    /**
+     * A DAWG cannot be changed once it is built
+     *
+     * @throws UnsupportedOperationException Always
+     */
+    public void add(String word) {
+        throw new UnsupportedOperationException("Dawg is read-only");
+    }
+
+    /**
+     * Searches the DAWG for the specified word
+     *
+     * @param word The word being searched for
+     *
+     * @return A node holding the word's frequency count,
+     * 			or null if the word is not in the DAWG
+     */
+    public ITrie.INode find(String word) {
+        word = word.toLowerCase();
+        int state = root;
+        int number = 0;
+        for (int i = 0; i < word.length(); i++) {
+            int edge = edge(state, word.charAt(i));
+            if (edge < 0) {
+                return null;
+            }
+            number += edgeSkips[edge];
+            state = edgeTargets[edge];
+        }
+        return isFinal[state] ? new PackedTrie.Node(frequencies[number]) : null;
+    }
+
+    /**
+     * Searches the DAWG for the first <code>length</code> characters of <code>word</code>,
+     * which must already be lower case, without creating a String
+     *
+     * @param word Buffer holding the word being searched for
+     * @param length Number of characters of the word in <code>word</code>
+     *
+     * @return A node holding the word's frequency count,
+     * 			or null if the word is not in the DAWG
+     */
+    public ITrie.INode find(char[] word, int length) {
+        int state = root;
+        int number = 0;
+        for (int i = 0; i < length; i++) {
+            int edge = edge(state, word[i]);
+            if (edge < 0) {
+                return null;
+            }
+            number += edgeSkips[edge];
+            state = edgeTargets[edge];
+        }
+        return isFinal[state] ? new PackedTrie.Node(frequencies[number]) : null;
+    }
+
+    /**
+     * Returns the edge of <code>state</code> labelled <code>c</code>, or -1.
+     */
+    private int edge(int state, char c) {
+        int index = Arrays.binarySearch(edgeLabels, firstEdge[state], firstEdge[state + 1], c);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Returns the number of unique words in the DAWG
+     *
+     * @return The number of unique words in the DAWG
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Returns the number of states in the DAWG, which is the number of nodes of the Trie it
+     * was built from once the nodes with the same words below them are merged
+     *
+     * @return The number of states in the DAWG
+     */
+    public int getNodeCount() {
+        return stateCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeLabels.length;
+    }
+
+    /**
+     * Estimated heap bytes used by the tables.
+     */
+    public long getMemoryFootprint() {
+        return MemoryFootprint.intArray(firstEdge.length) + MemoryFootprint.booleanArray(isFinal.length)
+                + MemoryFootprint.charArray(edgeLabels.length) + MemoryFootprint.intArray(edgeTargets.length)
+                + MemoryFootprint.intArray(edgeSkips.length) + MemoryFootprint.intArray(frequencies.length)
+                + MemoryFootprint.align(MemoryFootprint.OBJECT_HEADER + 3 * 4 + 6 * MemoryFootprint.REFERENCE);
+    }
+
+    /**
+     * The toString specification is as follows:
+     * For each word, in alphabetical order:
+     * <word>\n
+     */
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        //One state and next edge per level, and the word so far
+        int[] states = new int[16];
+        int[] edges = new int[16];
+        char[] path = new char[16];
+        states[0] = root;
+        edges[0] = -1;
+        int depth = 0;
+        while (depth >= 0) {
+            int state = states[depth];
+            if (edges[depth] < 0) {
+                edges[depth] = firstEdge[state];
+                if (isFinal[state]) {
+                    output.append(path, 0, depth).append('\n');
+                }
+            }
+            int edge = edges[depth];
+            if (edge == firstEdge[state + 1]) {
+                depth--;
+                continue;
+            }
+            edges[depth] = edge + 1;
+            if (depth + 1 == states.length) {
+                states = Arrays.copyOf(states, states.length * 2);
+                edges = Arrays.copyOf(edges, edges.length * 2);
+                path = Arrays.copyOf(path, path.length * 2);
+            }
+            path[depth] = edgeLabels[edge];
+            depth++;
+            states[depth] = edgeTargets[edge];
+            edges[depth] = -1;
+        }
+        return output.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(frequencies) * 31 + Arrays.hashCode(edgeLabels);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        if (o == this) {
+            return true;
+        }
+        Dawg dawg = (Dawg) o;
+        //States are numbered by a fixed walk of the words, so equal dictionaries give equal tables
+        return root == dawg.root && Arrays.equals(frequencies, dawg.frequencies)
+                && Arrays.equals(firstEdge, dawg.firstEdge) && Arrays.equals(isFinal, dawg.isFinal)
+                && Arrays.equals(edgeLabels, dawg.edgeLabels) && Arrays.equals(edgeTargets, dawg.edgeTargets);
+    }
+
+    /**
+     * Minimizes a Trie bottom up. A node becomes a state once all its children have; if a state
+     * with the same finality and the same labelled edges already exists, the node is merged
+     * into it, since the words below the two are then the same.
+     */
+    private static class Builder {
+        int stateCount;
+        int[] firstEdge;
+        boolean[] isFinal;
+        int[] wordsBelow;
+        int edgeCount;
+        char[] edgeLabels;
+        int[] edgeTargets;
+        int[] edgeSkips;
+        //Finality and edges of each state, to find an existing state a node can merge into
+        private final Map<Signature, Integer> register = new HashMap<>();
+
+        Builder() {
+            firstEdge = new int[16];
+            isFinal = new boolean[16];
+            wordsBelow = new int[16];
+            edgeLabels = new char[16];
+            edgeTargets = new int[16];
+            edgeSkips = new int[16];
+        }
+
+        /**
+         * Registers every node of the trie, children first, and returns the root's state.
+         */
+        int build(Trie trie) {
+            //Per level: the node, the next slot, and the letter and state of each child done so far
+            TrieNode[] nodes = new TrieNode[16];
+            int[] slots = new int[16];
+            char[][] labels = new char[16][];
+            int[][] targets = new int[16][];
+            int[] childCounts = new int[16];
+            nodes[0] = trie.root;
+            labels[0] = new char[4];
+            targets[0] = new int[4];
+            int depth = 0;
+            int state = -1;
+            while (depth >= 0) {
+                TrieNode node = nodes[depth];
+                TrieNode[] children = node.letters;
+                int slot = slots[depth];
+                while (slot < children.length && children[slot] == null) {
+                    slot++;
+                }
+                if (slot < children.length) {
+                    slots[depth] = slot + 1;
+                    if (depth + 1 == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                        slots = Arrays.copyOf(slots, slots.length * 2);
+                        labels = Arrays.copyOf(labels, labels.length * 2);
+                        targets = Arrays.copyOf(targets, targets.length * 2);
+                        childCounts = Arrays.copyOf(childCounts, childCounts.length * 2);
+                    }
+                    //The child's letter waits at this level until the child has its state
+                    append(labels, targets, childCounts, depth, node.letter(slot, trie.alphabet), -1);
+                    depth++;
+                    nodes[depth] = children[slot];
+                    slots[depth] = 0;
+                    childCounts[depth] = 0;
+                    if (labels[depth] == null) {
+                        labels[depth] = new char[4];
+                        targets[depth] = new int[4];
+                    }
+                    continue;
+                }
+                state = register(node.frequencyCount > 0, labels[depth], targets[depth], childCounts[depth]);
+                depth--;
+                if (depth >= 0) {
+                    targets[depth][childCounts[depth] - 1] = state;
+                }
+            }
+            return state;
+        }
+
+        private static void append(char[][] labels, int[][] targets, int[] counts, int depth, char label, int target) {
+            if (counts[depth] == labels[depth].length) {
+                labels[depth] = Arrays.copyOf(labels[depth], counts[depth] * 2);
+                targets[depth] = Arrays.copyOf(targets[depth], counts[depth] * 2);
+            }
+            labels[depth][counts[depth]] = label;
+            targets[depth][counts[depth]] = target;
+            counts[depth]++;
+        }
+
+        /**
+         * Returns the state with this finality and these edges, adding it if there is none.
+         */
+        private int register(boolean finalState, char[] labels, int[] targets, int count) {
+            Signature signature = new Signature(finalState, labels, targets, count);
+            Integer existing = register.get(signature);
+            if (existing != null) {
+                return existing;
+            }
+            int state = stateCount++;
+            if (state + 1 >= firstEdge.length) {
+                firstEdge = Arrays.copyOf(firstEdge, firstEdge.length * 2);
+                isFinal = Arrays.copyOf(isFinal, isFinal.length * 2);
+                wordsBelow = Arrays.copyOf(wordsBelow, wordsBelow.length * 2);
+            }
+            if (edgeCount + count > edgeLabels.length) {
+                int size = Math.max(edgeLabels.length * 2, edgeCount + count);
+                edgeLabels = Arrays.copyOf(edgeLabels, size);
+                edgeTargets = Arrays.copyOf(edgeTargets, size);
+                edgeSkips = Arrays.copyOf(edgeSkips, size);
+            }
+            firstEdge[state] = edgeCount;
+            isFinal[state] = finalState;
+            int words = finalState ? 1 : 0;
+            for (int i = 0; i < count; i++) {
+                edgeLabels[edgeCount] = labels[i];
+                edgeTargets[edgeCount] = targets[i];
+                edgeSkips[edgeCount] = words;
+                words += wordsBelow[targets[i]];
+                edgeCount++;
+            }
+            wordsBelow[state] = words;
+            firstEdge[state + 1] = edgeCount;
+            register.put(signature, state);
+            return state;
+        }
+    }
+
+    /**
+     * The finality and labelled edges of a state, copied so the builder can reuse its buffers.
+     */
+    private static class Signature {
+        private final boolean finalState;
+        private final char[] labels;
+        private final int[] targets;
+        private final int hash;
+
+        Signature(boolean finalState, char[] labels, int[] targets, int count) {
+            this.finalState = finalState;
+            this.labels = Arrays.copyOf(labels, count);
+            this.targets = Arrays.copyOf(targets, count);
+            this.hash = (Arrays.hashCode(this.labels) * 31 + Arrays.hashCode(this.targets)) * 2 + (finalState ? 1 : 0);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Signature)) {
+                return false;
+            }
+            Signature signature = (Signature) o;
+            return finalState == signature.finalState && Arrays.equals(labels, signature.labels)
+                    && Arrays.equals(targets, signature.targets);
+        }
+    }
+}
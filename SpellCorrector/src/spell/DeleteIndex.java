@@ -0,0 +1,212 @@
+package spell;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Symmetric-delete candidate index (SymSpell style).
+ * Every dictionary word is stored under each string obtained by deleting up to
+ * <code>MAX_DISTANCE</code> of its characters. Two words within that edit distance always
+ * share at least one such delete, so a lookup only has to generate the deletes of the
+ * input word and probe the map.
+ */
+public class DeleteIndex {
+
+    public static final int MAX_DISTANCE = 2;
+
+    //Persistent, so withChanges can share everything it does not change
+    private HashTrieMap<List<String>> deletes;
+
+    public DeleteIndex() {
+        deletes = new HashTrieMap<>();
+    }
+
+    /**
+     * Indexes a (lower case) dictionary word under all of its deletes. The word lists are
+     * changed in place, so this is for building an index, not for one made by
+     * <code>withChanges</code> or passed to it.
+     *
+     * @param word The word being indexed
+     */
+    public void add(String word) {
+        for (String delete : deletesOf(word)) {
+            List<String> words = deletes.get(delete);
+            if (words == null) {
+                words = new ArrayList<>(1);
+                deletes.put(delete, words);
+            }
+            if (!words.contains(word)) {
+                words.add(word);
+            }
+        }
+    }
+
+    /**
+     * Returns every indexed word sharing a delete with <code>word</code>. The candidates are a
+     * superset of the words within <code>MAX_DISTANCE</code> edits and still have to be verified.
+     *
+     * @param word The (lower case) word being looked up
+     * @return The candidate dictionary words
+     */
+    public Set<String> candidates(String word) {
+        Set<String> candidates = new HashSet<>();
+        for (String delete : deletesOf(word)) {
+            List<String> words = deletes.get(delete);
+            if (words != null) {
+                candidates.addAll(words);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns a copy of the index with words added and removed. This index is not changed, so
+     * other threads can keep reading it meanwhile. The copy shares everything but the map nodes
+     * on the way to each changed delete and the word lists that change, so the cost depends on
+     * the number of changed words, not on the size of the index.
+     *
+     * @param added (Lower case) words to index
+     * @param removed (Lower case) words to stop indexing
+     * @return The changed copy
+     */
+    public DeleteIndex withChanges(Collection<String> added, Collection<String> removed) {
+        DeleteIndex copy = new DeleteIndex();
+        copy.deletes = deletes.copy();
+        Set<String> copiedLists = new HashSet<>();
+        for (String word : removed) {
+            for (String delete : deletesOf(word)) {
+                List<String> words = copy.deletes.get(delete);
+                if (words == null || !words.contains(word)) {
+                    continue;
+                }
+                if (words.size() == 1) {
+                    copy.deletes.remove(delete);
+                    continue;
+                }
+                if (copiedLists.add(delete)) {
+                    words = new ArrayList<>(words);
+                    copy.deletes.put(delete, words);
+                }
+                words.remove(word);
+            }
+        }
+        for (String word : added) {
+            for (String delete : deletesOf(word)) {
+                List<String> words = copy.deletes.get(delete);
+                if (words == null) {
+                    words = new ArrayList<>(1);
+                    copy.deletes.put(delete, words);
+                    copiedLists.add(delete);
+                } else if (words.contains(word)) {
+                    continue;
+                } else if (copiedLists.add(delete)) {
+                    words = new ArrayList<>(words);
+                    copy.deletes.put(delete, words);
+                }
+                words.add(word);
+            }
+        }
+        return copy;
+    }
+
+    public int size() {
+        return deletes.size();
+    }
+
+    public void reset() {
+        deletes = new HashTrieMap<>();
+    }
+
+    /**
+     * The word itself plus every string reachable by deleting one or two of its characters.
+     */
+    static Set<String> deletesOf(String word) {
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        Set<String> level = result;
+        for (int distance = 1; distance <= MAX_DISTANCE; distance++) {
+            Set<String> next = new HashSet<>();
+            for (String base : level) {
+                for (int i = 0; i < base.length(); i++) {
+                    next.add(base.substring(0, i) + base.substring(i + 1));
+                }
+            }
+            result.addAll(next);
+            level = next;
+        }
+        return result;
+    }
+
+    /**
+     * Damerau-Levenshtein distance between two words, counting a deletion, insertion,
+     * alteration or adjacent transposition as one edit each. Unlike the restricted (optimal
+     * string alignment) version, a substring may be edited more than once, which matches
+     * applying the distance 1 generators of <code>SpellCorrector</code> twice.
+     *
+     * @return The distance, or <code>limit + 1</code> once it is known to exceed <code>limit</code>
+     */
+    static int distance(String a, String b, int limit) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > limit) {
+            return limit + 1;
+        }
+        int infinity = n + m;
+        //Row i of the table starts at i * width, in one array to allocate less per candidate
+        int width = m + 2;
+        int[] d = new int[(n + 2) * width];
+        d[0] = infinity;
+        for (int i = 0; i <= n; i++) {
+            d[(i + 1) * width] = infinity;
+            d[(i + 1) * width + 1] = i;
+        }
+        for (int j = 0; j <= m; j++) {
+            d[j + 1] = infinity;
+            d[width + j + 1] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            int lastMatchColumn = 0;
+            int row = i * width;
+            int next = row + width;
+            //No row has a smaller minimum than the rows above it, so once one is past the
+            //limit the distance is too
+            int rowMinimum = d[next + 1];
+            for (int j = 1; j <= m; j++) {
+                int lastMatchRow = lastRow(a, i, b.charAt(j - 1));
+                int cost = 1;
+                if (a.charAt(i - 1) == b.charAt(j - 1)) {
+                    cost = 0;
+                }
+                int best = Math.min(d[row + j] + cost, Math.min(d[next + j] + 1, d[row + j + 1] + 1));
+                if (lastMatchRow > 0 && lastMatchColumn > 0) {
+                    best = Math.min(best, d[lastMatchRow * width + lastMatchColumn]
+                            + (i - lastMatchRow - 1) + 1 + (j - lastMatchColumn - 1));
+                }
+                d[next + j + 1] = best;
+                rowMinimum = Math.min(rowMinimum, best);
+                if (cost == 0) {
+                    lastMatchColumn = j;
+                }
+            }
+            if (rowMinimum > limit) {
+                return limit + 1;
+            }
+        }
+        return Math.min(d[(n + 1) * width + m + 1], limit + 1);
+    }
+
+    /**
+     * The last row (1 based) before row <code>i</code> where <code>c</code> occurs in <code>a</code>, or 0.
+     */
+    private static int lastRow(String a, int i, char c) {
+        for (int k = i - 1; k >= 1; k--) {
+            if (a.charAt(k - 1) == c) {
+                return k;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,116 @@
+package spell;
+
+/**
+ * Generates the distance 1 edits of a word (the same words as the deletion, transposition,
+ * alteration and insertion methods of <code>SpellCorrector</code>) into a single reusable
+ * buffer, without creating a String or a Set per candidate. A word may be visited more than
+ * once when two edits produce it.
+ */
+public class EditGenerator {
+
+    /**
+     * Visits every distance 1 edit of the first <code>length</code> characters of
+     * <code>word</code>, written into <code>buffer</code>, which must hold at least
+     * <code>length + 1</code> characters and must not be <code>word</code>.
+     */
+    public static void forEachEdit(char[] word, int length, char[] buffer, EditVisitor visitor) {
+        forEachEdit(word, length, buffer, Alphabet.ASCII, visitor);
+    }
+
+    /**
+     * Same as above, altering and inserting the letters of <code>alphabet</code> instead of a to z.
+     */
+    public static void forEachEdit(char[] word, int length, char[] buffer, Alphabet alphabet, EditVisitor visitor) {
+        char[] letters = alphabet.letters;
+        //Deletion: every character but one
+        for (int i = 0; i < length; i++) {
+            System.arraycopy(word, 0, buffer, 0, i);
+            System.arraycopy(word, i + 1, buffer, i, length - i - 1);
+            visitor.visit(buffer, length - 1);
+        }
+        //Transposition: swap neighbours
+        for (int i = 0; i + 1 < length; i++) {
+            System.arraycopy(word, 0, buffer, 0, length);
+            buffer[i] = word[i + 1];
+            buffer[i + 1] = word[i];
+            visitor.visit(buffer, length);
+        }
+        //Alteration: replace one character with each other letter
+        System.arraycopy(word, 0, buffer, 0, length);
+        for (int i = 0; i < length; i++) {
+            for (char c : letters) {
+                if (c != word[i]) {
+                    buffer[i] = c;
+                    visitor.visit(buffer, length);
+                }
+            }
+            buffer[i] = word[i];
+        }
+        //Insertion: each letter at each position
+        for (int i = 0; i <= length; i++) {
+            System.arraycopy(word, 0, buffer, 0, i);
+            System.arraycopy(word, i, buffer, i + 1, length - i);
+            for (char c : letters) {
+                buffer[i] = c;
+                visitor.visit(buffer, length + 1);
+            }
+        }
+    }
+
+    /**
+     * Keeps the most frequent dictionary word visited (ties go to the first alphabetically),
+     * copied into its own buffer so only the winner ever becomes a String.
+     */
+    static class BestWord implements EditVisitor {
+        private final ITrie dictionary;
+        private char[] best;
+        private int bestLength;
+        private int bestValue;
+        //Every variant probed, reported as the candidates of a traced VARIANTS lookup
+        int visits;
+
+        BestWord(ITrie dictionary, int capacity) {
+            this.dictionary = dictionary;
+            this.best = new char[capacity];
+        }
+
+        public void visit(char[] word, int length) {
+            visits++;
+            ITrie.INode node = dictionary.find(word, length);
+            if (node == null) {
+                return;
+            }
+            int value = node.getValue();
+            if (value > bestValue || (value == bestValue && compare(word, length) < 0)) {
+                if (best.length < length) {
+                    best = new char[length];
+                }
+                System.arraycopy(word, 0, best, 0, length);
+                bestLength = length;
+                bestValue = value;
+            }
+        }
+
+        /**
+         * Compares a candidate with the best word the way <code>String.compareTo</code> would.
+         */
+        private int compare(char[] word, int length) {
+            int shorter = Math.min(length, bestLength);
+            for (int i = 0; i < shorter; i++) {
+                if (word[i] != best[i]) {
+                    return word[i] - best[i];
+                }
+            }
+            return length - bestLength;
+        }
+
+        boolean found() {
+            return bestValue > 0;
+        }
+
+        String word() {
+            return found() ? new String(best, 0, bestLength) : null;
+        }
+    }
+
+}
@@ -0,0 +1,14 @@
+package spell;
+
+/**
+ * Receives candidate words generated in place in a reusable buffer. The buffer is overwritten
+ * by the next candidate, so a visitor must copy anything it wants to keep.
+ */
+public interface EditVisitor {
+
+    /**
+     * @param word Buffer holding the candidate
+     * @param length Number of characters of the candidate in <code>word</code>
+     */
+    void visit(char[] word, int length);
+}
@@ -0,0 +1,159 @@
+package spell;
+
+/**
+ * Noisy-channel costs for each kind of edit, as negative log probabilities: the cost of the
+ * user typing the input when they meant a dictionary word. A suggestion's score is the log of
+ * its frequency minus the total cost of the edits between it and the input, so a cheap edit to
+ * a rare word can beat a costly edit to a common one.
+ */
+public class EditWeights {
+
+    /** Transpositions are the most common typing slip, alterations the least */
+    public static final EditWeights DEFAULT = new EditWeights(4.0, 4.0, 4.5, 3.5);
+
+    private static final double INFINITY = Double.MAX_VALUE / 4;
+
+    //A letter of the intended word is missing from the input
+    final double deletion;
+    //The input has a letter the intended word does not
+    final double insertion;
+    final double alteration;
+    final double transposition;
+
+    public EditWeights(double deletion, double insertion, double alteration, double transposition) {
+        this.deletion = deletion;
+        this.insertion = insertion;
+        this.alteration = alteration;
+        this.transposition = transposition;
+    }
+
+    /**
+     * The score of suggesting a word with <code>frequency</code> that is <code>cost</code> away
+     * from the input.
+     */
+    public static double score(int frequency, double cost) {
+        return Math.log(frequency) - cost;
+    }
+
+    public double cost(String word, String input) {
+        return cost(word.toCharArray(), word.length(), input);
+    }
+
+    /**
+     * Same as above, unless <code>word</code> is more than <code>maxEdits</code> edits from
+     * <code>input</code> (as <code>DeleteIndex.distance</code> counts them), in which case it
+     * gives up as soon as that is known and returns <code>Double.POSITIVE_INFINITY</code>. Both
+     * tables are filled in the same pass, so checking the distance costs little on top of
+     * the weighted cost.
+     */
+    public double cost(String word, String input, int maxEdits) {
+        int n = word.length();
+        int m = input.length();
+        if (Math.abs(n - m) > maxEdits) {
+            return Double.POSITIVE_INFINITY;
+        }
+        //Row i of each table starts at i * width
+        int width = m + 2;
+        double[] d = new double[(n + 2) * width];
+        int[] edits = new int[d.length];
+        d[0] = INFINITY;
+        edits[0] = n + m;
+        for (int i = 0; i <= n; i++) {
+            d[(i + 1) * width] = INFINITY;
+            d[(i + 1) * width + 1] = i * deletion;
+            edits[(i + 1) * width] = n + m;
+            edits[(i + 1) * width + 1] = i;
+        }
+        for (int j = 0; j <= m; j++) {
+            d[j + 1] = INFINITY;
+            d[width + j + 1] = j * insertion;
+            edits[j + 1] = n + m;
+            edits[width + j + 1] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            int lastMatchColumn = 0;
+            int row = i * width;
+            int next = row + width;
+            int fewestEdits = edits[next + 1];
+            for (int j = 1; j <= m; j++) {
+                char inputChar = input.charAt(j - 1);
+                int lastMatchRow = 0;
+                for (int k = i - 1; k >= 1; k--) {
+                    if (word.charAt(k - 1) == inputChar) {
+                        lastMatchRow = k;
+                        break;
+                    }
+                }
+                boolean match = word.charAt(i - 1) == inputChar;
+                double best = Math.min(d[row + j] + (match ? 0 : alteration),
+                        Math.min(d[row + j + 1] + deletion, d[next + j] + insertion));
+                int bestEdits = Math.min(edits[row + j] + (match ? 0 : 1),
+                        Math.min(edits[row + j + 1] + 1, edits[next + j] + 1));
+                if (lastMatchRow > 0 && lastMatchColumn > 0) {
+                    int corner = lastMatchRow * width + lastMatchColumn;
+                    best = Math.min(best, d[corner] + (i - lastMatchRow - 1) * deletion + transposition
+                            + (j - lastMatchColumn - 1) * insertion);
+                    bestEdits = Math.min(bestEdits, edits[corner] + (i - lastMatchRow - 1) + 1
+                            + (j - lastMatchColumn - 1));
+                }
+                d[next + j + 1] = best;
+                edits[next + j + 1] = bestEdits;
+                fewestEdits = Math.min(fewestEdits, bestEdits);
+                if (match) {
+                    lastMatchColumn = j;
+                }
+            }
+            //As in DeleteIndex.distance, no later row can have fewer edits
+            if (fewestEdits > maxEdits) {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+        return edits[(n + 1) * width + m + 1] <= maxEdits ? d[(n + 1) * width + m + 1] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Cheapest total cost of the edits turning the first <code>length</code> characters of
+     * <code>word</code> into <code>input</code>. This is the weighted form of the
+     * Damerau-Levenshtein distance in <code>DeleteIndex.distance</code>.
+     */
+    public double cost(char[] word, int length, String input) {
+        int n = length;
+        int m = input.length();
+        double[][] d = new double[n + 2][m + 2];
+        d[0][0] = INFINITY;
+        for (int i = 0; i <= n; i++) {
+            d[i + 1][0] = INFINITY;
+            d[i + 1][1] = i * deletion;
+        }
+        for (int j = 0; j <= m; j++) {
+            d[0][j + 1] = INFINITY;
+            d[1][j + 1] = j * insertion;
+        }
+        for (int i = 1; i <= n; i++) {
+            int lastMatchColumn = 0;
+            for (int j = 1; j <= m; j++) {
+                char inputChar = input.charAt(j - 1);
+                int lastMatchRow = 0;
+                for (int k = i - 1; k >= 1; k--) {
+                    if (word[k - 1] == inputChar) {
+                        lastMatchRow = k;
+                        break;
+                    }
+                }
+                boolean match = word[i - 1] == inputChar;
+                double best = Math.min(d[i][j] + (match ? 0 : alteration),
+                        Math.min(d[i][j + 1] + deletion, d[i + 1][j] + insertion));
+                if (lastMatchRow > 0 && lastMatchColumn > 0) {
+                    best = Math.min(best, d[lastMatchRow][lastMatchColumn]
+                            + (i - lastMatchRow - 1) * deletion + transposition
+                            + (j - lastMatchColumn - 1) * insertion);
+                }
+                d[i + 1][j + 1] = best;
+                if (match) {
+                    lastMatchColumn = j;
+                }
+            }
+        }
+        return d[n + 1][m + 1];
+    }
+}
@@ -0,0 +1,228 @@
+package spell;
+
+/**
+ * A persistent hash map from Strings (a hash array mapped trie): each node covers 5 bits of
+ * the key's hash, with a bitmap of the slots in use and an array holding a key and value, or
+ * null and a child node, per slot. <code>copy</code> is O(1) and shares every node; after it,
+ * changing either map copies only the nodes on the path to the changed key, so a change costs
+ * the same whatever the size of the map.
+ * <p>
+ * Each map owns the nodes it created since its last copy and changes those in place, so
+ * building a map one key at a time does not copy anything. A map is not thread safe, but a
+ * copy can be changed while other threads read the original.
+ */
+final class HashTrieMap<V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private Node root;
+    private int size;
+    //Nodes created with this owner belong to this map only and may be changed in place
+    private Object owner = new Object();
+
+    HashTrieMap() {
+        root = new Node(owner, 0, new Object[0]);
+    }
+
+    private HashTrieMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns a map with the same entries. Both maps copy the nodes they share before
+     * changing them.
+     */
+    HashTrieMap<V> copy() {
+        //This map no longer owns its nodes either, since the copy can see them
+        owner = new Object();
+        return new HashTrieMap<>(root, size);
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(String key) {
+        int hash = hash(key);
+        Node node = root;
+        for (int shift = 0; ; shift += BITS) {
+            int index;
+            if (shift >= Integer.SIZE) {
+                index = node.collisionIndex(key);
+                if (index < 0) {
+                    return null;
+                }
+            } else {
+                int bit = 1 << ((hash >>> shift) & MASK);
+                if ((node.bitmap & bit) == 0) {
+                    return null;
+                }
+                index = node.index(bit);
+            }
+            Object slotKey = node.array[index];
+            if (slotKey == null) {
+                node = (Node) node.array[index + 1];
+            } else {
+                return key.equals(slotKey) ? (V) node.array[index + 1] : null;
+            }
+        }
+    }
+
+    void put(String key, V value) {
+        root = put(root, 0, hash(key), key, value);
+    }
+
+    void remove(String key) {
+        Node result = remove(root, 0, hash(key), key);
+        root = result != null ? result : new Node(owner, 0, new Object[0]);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private Node put(Node node, int shift, int hash, String key, Object value) {
+        if (shift >= Integer.SIZE) {
+            //Every bit of the hash is used up, so the keys here all have the same hash
+            int index = node.collisionIndex(key);
+            if (index >= 0) {
+                return set(node, index + 1, value);
+            }
+            size++;
+            return withArray(node, node.bitmap, insert(node.array, node.array.length, key, value));
+        }
+        int bit = 1 << ((hash >>> shift) & MASK);
+        int index = node.index(bit);
+        if ((node.bitmap & bit) == 0) {
+            size++;
+            return withArray(node, node.bitmap | bit, insert(node.array, index, key, value));
+        }
+        Object slotKey = node.array[index];
+        Object slotValue = node.array[index + 1];
+        if (slotKey == null) {
+            Node child = put((Node) slotValue, shift + BITS, hash, key, value);
+            return child == slotValue ? node : set(node, index + 1, child);
+        }
+        if (key.equals(slotKey)) {
+            return slotValue == value ? node : set(node, index + 1, value);
+        }
+        //Two keys in one slot: push both down into a new node
+        Node child = new Node(owner, 0, new Object[0]);
+        child = put(child, shift + BITS, hash((String) slotKey), (String) slotKey, slotValue);
+        size--; //Moved, not added
+        child = put(child, shift + BITS, hash, key, value);
+        node = set(node, index, null);
+        node.array[index + 1] = child;
+        return node;
+    }
+
+    /**
+     * Returns the node without the key, or null if that leaves it empty
+     */
+    private Node remove(Node node, int shift, int hash, String key) {
+        int index;
+        int bit = 0;
+        if (shift >= Integer.SIZE) {
+            index = node.collisionIndex(key);
+            if (index < 0) {
+                return node;
+            }
+        } else {
+            bit = 1 << ((hash >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0) {
+                return node;
+            }
+            index = node.index(bit);
+        }
+        Object slotKey = node.array[index];
+        if (slotKey == null) {
+            Node child = (Node) node.array[index + 1];
+            Node result = remove(child, shift + BITS, hash, key);
+            if (result == child) {
+                return node;
+            }
+            if (result != null) {
+                return set(node, index + 1, result);
+            }
+        } else if (key.equals(slotKey)) {
+            size--;
+        } else {
+            return node;
+        }
+        //The slot is empty now
+        if (node.array.length == 2) {
+            return null;
+        }
+        Object[] array = new Object[node.array.length - 2];
+        System.arraycopy(node.array, 0, array, 0, index);
+        System.arraycopy(node.array, index + 2, array, index, array.length - index);
+        return withArray(node, node.bitmap & ~bit, array);
+    }
+
+    /**
+     * Gives a node a new bitmap and array, in place if this map owns it
+     */
+    private Node withArray(Node node, int bitmap, Object[] array) {
+        if (node.owner != owner) {
+            return new Node(owner, bitmap, array);
+        }
+        node.bitmap = bitmap;
+        node.array = array;
+        return node;
+    }
+
+    /**
+     * Sets one array element, in place if this map owns the node
+     */
+    private Node set(Node node, int index, Object value) {
+        if (node.owner != owner) {
+            node = new Node(owner, node.bitmap, node.array.clone());
+        }
+        node.array[index] = value;
+        return node;
+    }
+
+    private static Object[] insert(Object[] array, int index, Object key, Object value) {
+        Object[] bigger = new Object[array.length + 2];
+        System.arraycopy(array, 0, bigger, 0, index);
+        bigger[index] = key;
+        bigger[index + 1] = value;
+        System.arraycopy(array, index, bigger, index + 2, array.length - index);
+        return bigger;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Node {
+        final Object owner;
+        int bitmap;
+        Object[] array;
+
+        Node(Object owner, int bitmap, Object[] array) {
+            this.owner = owner;
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        /**
+         * The array index of the slot for a bit of the bitmap
+         */
+        int index(int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        /**
+         * The array index of a key in a node of keys with equal hashes, or -1
+         */
+        int collisionIndex(String key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -21,6 +21,21 @@ public interface ITrie {
 	 * 			or null if the word is not in the trie
 	 */
 	public INode find(String word);
+
+	/**
+	 * Searches the trie for the first <code>length</code> characters of <code>word</code>,
+	 * which must already be lower case. Tries that can walk a char buffer directly override
+	 * this so the lookup does not create a String.
+	 *
+	 * @param word Buffer holding the word being searched for
+	 * @param length Number of characters of the word in <code>word</code>
+	 *
+	 * @return A reference to the trie node that represents the word,
+	 * 			or null if the word is not in the trie
+	 */
+	public default INode find(char[] word, int length) {
+		return find(new String(word, 0, length));
+	}
 	
 	/**
 	 * Returns the number of unique words in the trie
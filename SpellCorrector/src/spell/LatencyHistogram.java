@@ -0,0 +1,77 @@
+package spell;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram of latencies with power of two buckets: bucket <code>i</code> counts
+ * the requests that took less than <code>2^i</code> microseconds (and at least half that).
+ * Recording is a couple of atomic increments, so it can sit on every request. Percentiles are
+ * reported as the upper bound of the bucket they fall in, so they are within a factor of two.
+ */
+public class LatencyHistogram {
+
+    //2^26 us is about 67 s; anything slower goes in the last bucket
+    private static final int BUCKETS = 27;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the mean latency in microseconds
+     */
+    public double getMeanMicros() {
+        long requests = count.sum();
+        return requests == 0 ? 0 : totalNanos.sum() / 1000.0 / requests;
+    }
+
+    /**
+     * Returns the latency in microseconds that <code>percentile</code> percent of the requests
+     * took less than, rounded up to a power of two
+     */
+    public long getPercentileMicros(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long wanted = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= wanted && seen > 0) {
+                return 1L << i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Writes a summary line followed by one line per non-empty bucket.
+     */
+    public void writeTo(StringBuilder output, String name) {
+        output.append(String.format("%s: %d requests, mean %.1f us, p50 < %d us, p90 < %d us, p99 < %d us, p99.9 < %d us%n",
+                name, getCount(), getMeanMicros(), getPercentileMicros(50), getPercentileMicros(90),
+                getPercentileMicros(99), getPercentileMicros(99.9)));
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucketCount = counts.get(i);
+            if (bucketCount > 0) {
+                output.append(String.format("  < %10d us %12d%n", 1L << i, bucketCount));
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package spell;
+
+/**
+ * Everything one loaded dictionary is made of. A <code>SpellCorrector</code> swaps a whole
+ * LoadedDictionary in at once, so a lookup running during a reload sees either the old
+ * dictionary or the new one, never a Trie and an index built from different words.
+ * Nothing in it changes once it has been swapped in.
+ */
+final class LoadedDictionary {
+
+    final Trie trie;
+    //Only filled in DELETE_INDEX mode
+    final DeleteIndex deleteIndex;
+    //Set by useSnapshot, and then used instead of trie
+    final PackedTrie packed;
+    //Letters of the snapshot, worked out the first time they are needed
+    private volatile Alphabet snapshotAlphabet;
+
+    LoadedDictionary(Trie trie, DeleteIndex deleteIndex, PackedTrie packed) {
+        this.trie = trie;
+        this.deleteIndex = deleteIndex;
+        this.packed = packed;
+    }
+
+    /**
+     * The dictionary lookups should use: the snapshot if there is one, otherwise the Trie.
+     */
+    ITrie words() {
+        if (packed != null) {
+            return packed;
+        }
+        return trie;
+    }
+
+    /**
+     * The letters edits are made with: those of the snapshot if there is one, otherwise the Trie's.
+     */
+    Alphabet alphabet() {
+        if (packed == null) {
+            return trie.alphabet;
+        }
+        if (snapshotAlphabet == null) {
+            snapshotAlphabet = Alphabet.of(packed);
+        }
+        return snapshotAlphabet;
+    }
+}
@@ -0,0 +1,113 @@
+package spell;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from non-zero longs to ints, with no boxing and no entry
+ * objects: a slot is one long key and one int value, about 16 bytes per entry at the highest
+ * load. Collisions are resolved by linear probing. Keys cannot be removed.
+ */
+public class LongIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    //0 marks an empty slot
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) Math.min(MAXIMUM_CAPACITY, expectedSize / LOAD_FACTOR + 1)) * 2 - 1);
+        allocate(Math.min(capacity, MAXIMUM_CAPACITY));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Returns the value of <code>key</code>, or 0 if it has none
+     */
+    public int get(long key) {
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Adds <code>delta</code> to the value of <code>key</code>, which starts at 0.
+     *
+     * @throws IllegalArgumentException If the key is 0
+     */
+    public void addTo(long key, int delta) {
+        if (key == 0) {
+            throw new IllegalArgumentException("0 cannot be a key");
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > resizeAt) {
+            grow();
+        }
+    }
+
+    private void grow() {
+        if (keys.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("LongIntHashMap is full");
+        }
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    /**
+     * Estimated heap bytes used by the tables.
+     */
+    public long getMemoryFootprint() {
+        return MemoryFootprint.align(MemoryFootprint.ARRAY_HEADER + 8L * keys.length)
+                + MemoryFootprint.intArray(values.length) + MemoryFootprint.align(MemoryFootprint.OBJECT_HEADER + 4 * 4 + 2 * MemoryFootprint.REFERENCE);
+    }
+}
@@ -0,0 +1,14 @@
+package spell;
+
+/**
+ * Told about every <code>SpellCorrector.suggestSimilarWord</code> lookup, once it is done, when
+ * set with <code>SpellCorrector.setLookupListener</code>. Without a listener the lookups are not
+ * timed at all. Called on the looking up thread, so it must be thread safe and quick.
+ */
+public interface LookupListener {
+
+    /**
+     * @param trace What the lookup did; only valid during the call
+     */
+    void lookupFinished(LookupTrace trace);
+}
@@ -0,0 +1,195 @@
+package spell;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A <code>LookupListener</code> that adds up what the lookups did: how many were answered by the
+ * cache, at which distance the suggestions were found, and the candidates and time spent
+ * generating and probing per lookup. The means are over the lookups that missed the cache;
+ * generation and probing are averaged over the lookups that could time them apart, and the
+ * variant and trie walk lookups that could not are averaged on their own.
+ * The counters are LongAdders, so many threads can record at once without contending.
+ * <p>
+ * It can be read directly, with <code>writeTo</code>, or over JMX after <code>register</code>.
+ */
+public class LookupMetrics implements LookupListener, LookupMetricsMBean {
+
+    public static final String OBJECT_NAME = "spell:type=LookupMetrics";
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    //Indexed by distance, with the lookups that found nothing last
+    private final LongAdder[] distances = new LongAdder[DeleteIndex.MAX_DISTANCE + 2];
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder generationNanos = new LongAdder();
+    private final LongAdder probeNanos = new LongAdder();
+    //Computed lookups that timed generation and probing together
+    private final LongAdder combinedLookups = new LongAdder();
+    private final LongAdder combinedNanos = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LookupMetrics() {
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void lookupFinished(LookupTrace trace) {
+        lookups.increment();
+        if (trace.isCacheHit()) {
+            cacheHits.increment();
+        }
+        int distance = trace.getDistance();
+        distances[distance == LookupTrace.NOT_FOUND ? distances.length - 1 : distance].increment();
+        candidates.add(trace.getCandidates());
+        if (trace.isPhasesCombined()) {
+            combinedLookups.increment();
+            combinedNanos.add(trace.getProbeNanos());
+        } else {
+            generationNanos.add(trace.getGenerationNanos());
+            probeNanos.add(trace.getProbeNanos());
+        }
+        totalNanos.add(trace.getTotalNanos());
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server as <code>OBJECT_NAME</code>.
+     *
+     * @throws JMException If the name is already registered
+     */
+    public void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+    }
+
+    @Override
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        long all = lookups.sum();
+        return all == 0 ? 0 : (double) cacheHits.sum() / all;
+    }
+
+    @Override
+    public long getExactMatches() {
+        return distances[0].sum();
+    }
+
+    @Override
+    public long getDistance1Matches() {
+        return distances[1].sum();
+    }
+
+    @Override
+    public long getDistance2Matches() {
+        return distances[2].sum();
+    }
+
+    @Override
+    public long getNoMatches() {
+        return distances[distances.length - 1].sum();
+    }
+
+    @Override
+    public double getMeanCandidates() {
+        return perComputedLookup(candidates.sum());
+    }
+
+    /**
+     * Returns the mean generation time of the lookups that timed it apart from probing
+     */
+    @Override
+    public double getMeanGenerationMicros() {
+        return perSeparateLookup(generationNanos.sum()) / 1000;
+    }
+
+    /**
+     * Returns the mean probe time of the lookups that timed it apart from generation
+     */
+    @Override
+    public double getMeanProbeMicros() {
+        return perSeparateLookup(probeNanos.sum()) / 1000;
+    }
+
+    @Override
+    public long getCombinedLookups() {
+        return combinedLookups.sum();
+    }
+
+    /**
+     * Returns the mean time the variant and trie walk lookups spent generating and probing together
+     */
+    @Override
+    public double getMeanCombinedMicros() {
+        long combined = combinedLookups.sum();
+        return combined == 0 ? 0 : combinedNanos.sum() / 1000.0 / combined;
+    }
+
+    /**
+     * Returns the mean time of a whole call, over every lookup including the cache hits
+     */
+    @Override
+    public double getMeanLookupMicros() {
+        long all = lookups.sum();
+        return all == 0 ? 0 : totalNanos.sum() / 1000.0 / all;
+    }
+
+    private double perComputedLookup(long total) {
+        long computed = lookups.sum() - cacheHits.sum();
+        return computed <= 0 ? 0 : (double) total / computed;
+    }
+
+    private double perSeparateLookup(long total) {
+        long separate = lookups.sum() - cacheHits.sum() - combinedLookups.sum();
+        return separate <= 0 ? 0 : (double) total / separate;
+    }
+
+    /**
+     * Sets every counter back to 0. Lookups recorded at the same time may be partly lost.
+     */
+    @Override
+    public void reset() {
+        lookups.reset();
+        cacheHits.reset();
+        for (LongAdder distance : distances) {
+            distance.reset();
+        }
+        candidates.reset();
+        generationNanos.reset();
+        probeNanos.reset();
+        combinedLookups.reset();
+        combinedNanos.reset();
+        totalNanos.reset();
+    }
+
+    /**
+     * Writes a summary of the lookups, one line per measure.
+     */
+    public void writeTo(StringBuilder output) {
+        output.append(String.format("lookups: %d, mean %.1f us%n", getLookups(), getMeanLookupMicros()));
+        output.append(String.format("  cache hits: %d (%.1f%%)%n", getCacheHits(), 100 * getCacheHitRate()));
+        output.append(String.format("  found at distance 0: %d, 1: %d, 2: %d, none: %d%n",
+                getExactMatches(), getDistance1Matches(), getDistance2Matches(), getNoMatches()));
+        output.append(String.format("  per lookup: %.1f candidates%n", getMeanCandidates()));
+        long separate = getLookups() - getCacheHits() - getCombinedLookups();
+        if (separate > 0) {
+            output.append(String.format("  %d lookups: %.1f us generating, %.1f us probing%n",
+                    separate, getMeanGenerationMicros(), getMeanProbeMicros()));
+        }
+        if (getCombinedLookups() > 0) {
+            output.append(String.format("  %d combined lookups: %.1f us generating and probing (not separable)%n",
+                    getCombinedLookups(), getMeanCombinedMicros()));
+        }
+    }
+}
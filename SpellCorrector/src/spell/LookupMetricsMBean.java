@@ -0,0 +1,35 @@
+package spell;
+
+/**
+ * The JMX view of <code>LookupMetrics</code>.
+ */
+public interface LookupMetricsMBean {
+
+    long getLookups();
+
+    long getCacheHits();
+
+    double getCacheHitRate();
+
+    long getExactMatches();
+
+    long getDistance1Matches();
+
+    long getDistance2Matches();
+
+    long getNoMatches();
+
+    double getMeanCandidates();
+
+    double getMeanGenerationMicros();
+
+    double getMeanProbeMicros();
+
+    long getCombinedLookups();
+
+    double getMeanCombinedMicros();
+
+    double getMeanLookupMicros();
+
+    void reset();
+}
@@ -0,0 +1,104 @@
+package spell;
+
+/**
+ * What one lookup did, filled in by <code>SpellCorrector</code> for its
+ * <code>LookupListener</code>. Where the time goes depends on the lookup mode:
+ * <ul>
+ * <li><code>VARIANTS</code>: each variant is looked up in the trie as soon as it is built, so
+ * the phases cannot be told apart. It all counts as probing, <code>isPhasesCombined</code> is
+ * true, and the candidates are the variants.</li>
+ * <li><code>DELETE_INDEX</code>: generation is generating the input's deletes and gathering the
+ * words sharing them, probing is checking the distance and frequency of each of those
+ * candidates.</li>
+ * <li><code>TRIE_SEARCH</code> (and snapshots): the walk generates and probes at once, so the
+ * phases cannot be told apart. It all counts as probing, <code>isPhasesCombined</code> is
+ * true, and the candidates are the trie nodes visited.</li>
+ * </ul>
+ * Lookups with a previous word are traced too. Outside <code>DELETE_INDEX</code> they walk the
+ * trie, so they are timed like <code>TRIE_SEARCH</code>.
+ * A word found in the dictionary as it is has no candidates, and a cache hit has no
+ * generation or probing at all.
+ */
+public class LookupTrace {
+
+    /** The distance of a lookup with no suggestion */
+    public static final int NOT_FOUND = -1;
+
+    final String word;
+    final SpellCorrector.LookupMode mode;
+    //False until the lookup itself runs, so it stays false on a cache hit
+    boolean computed;
+    //True for variants and trie walks, whose generation and probing are one pass
+    boolean phasesCombined;
+    int candidates;
+    long generationNanos;
+    long probeNanos;
+    long totalNanos;
+    String suggestion;
+    int distance = NOT_FOUND;
+
+    LookupTrace(String word, SpellCorrector.LookupMode mode) {
+        this.word = word;
+        this.mode = mode;
+    }
+
+    /**
+     * Returns the (lower case) word looked up
+     */
+    public String getWord() {
+        return word;
+    }
+
+    public SpellCorrector.LookupMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns whether the suggestion came from the cache without a lookup
+     */
+    public boolean isCacheHit() {
+        return !computed;
+    }
+
+    /**
+     * Returns whether generating and probing ran as one pass, so all of the time is in
+     * <code>getProbeNanos</code> and none of it could be put down to generation
+     */
+    public boolean isPhasesCombined() {
+        return phasesCombined;
+    }
+
+    public int getCandidates() {
+        return candidates;
+    }
+
+    public long getGenerationNanos() {
+        return generationNanos;
+    }
+
+    public long getProbeNanos() {
+        return probeNanos;
+    }
+
+    /**
+     * Returns the time the whole call took, including the cache
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns the suggestion, or null if there was no similar word
+     */
+    public String getSuggestion() {
+        return suggestion;
+    }
+
+    /**
+     * Returns the edit distance of the suggestion: 0 if the word is in the dictionary, 1 or 2,
+     * or <code>NOT_FOUND</code>
+     */
+    public int getDistance() {
+        return distance;
+    }
+}
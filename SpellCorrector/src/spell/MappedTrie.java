@@ -0,0 +1,174 @@
+package spell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only trie served straight from a memory-mapped binary snapshot, so opening a
+ * dictionary does not rebuild anything and the tables stay off the heap.
+ * The snapshot holds the <code>PackedTrie</code> tables of a <code>CompactTrie</code>:
+ * <pre>
+ * int magic, int version, int wordCount, int nodeCount
+ * int[nodeCount + 1] firstChild
+ * int[nodeCount] frequencies
+ * char[nodeCount] labels
+ * </pre>
+ * A single mapping is limited to 2 GB, which is about 200 million nodes.
+ */
+public class MappedTrie extends PackedTrie {
+
+    private static final int MAGIC = 0x54524945; //"TRIE"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * 4;
+
+    private final ByteBuffer buffer;
+    private final int wordCount;
+    private final int nodeCount;
+    private final int frequenciesOffset;
+    private final int labelsOffset;
+
+    private MappedTrie(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a trie snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported trie snapshot version " + buffer.getInt(4));
+        }
+        wordCount = buffer.getInt(8);
+        nodeCount = buffer.getInt(12);
+        frequenciesOffset = HEADER_SIZE + 4 * (nodeCount + 1);
+        labelsOffset = frequenciesOffset + 4 * nodeCount;
+        if (buffer.limit() != size(nodeCount)) {
+            throw new IOException("Trie snapshot is truncated");
+        }
+    }
+
+    /**
+     * Maps a snapshot written by <code>write</code>.
+     *
+     * @param file The snapshot file
+     * @return A trie reading from the mapped file
+     * @throws IOException If the file cannot be read or is not a trie snapshot
+     */
+    public static MappedTrie open(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            //The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedTrie(buffer);
+        }
+    }
+
+    /**
+     * Writes a snapshot of <code>trie</code> that <code>open</code> can map. The snapshot goes
+     * to a temporary file next to <code>file</code> that then replaces it, so a corrector that
+     * has <code>file</code> mapped keeps reading the old snapshot.
+     *
+     * @param trie The loaded trie
+     * @param file The snapshot file, replaced if it exists
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(Trie trie, File file) throws IOException {
+        CompactTrie compactTrie = new CompactTrie(trie);
+        long size = size(compactTrie.nodeCount);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Trie is too large for a snapshot");
+        }
+        File copy = tempFile(file);
+        try {
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(copy, "rw");
+                 FileChannel channel = randomAccessFile.getChannel()) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(compactTrie.wordCount).putInt(compactTrie.nodeCount);
+                buffer.asIntBuffer().put(compactTrie.firstChild).put(compactTrie.frequencies);
+                buffer.position(HEADER_SIZE + 4 * (2 * compactTrie.nodeCount + 1));
+                buffer.asCharBuffer().put(compactTrie.labels);
+                buffer.force();
+            }
+            replace(copy, file);
+        } finally {
+            Files.deleteIfExists(copy.toPath());
+        }
+    }
+
+    /**
+     * Writes a copy of this snapshot to <code>file</code>. The copy goes to a temporary file
+     * next to it that then replaces it, so <code>file</code> may be the snapshot being read.
+     *
+     * @param file The snapshot file, replaced if it exists
+     * @throws IOException If the file cannot be written
+     */
+    public void write(File file) throws IOException {
+        File copy = tempFile(file);
+        try {
+            try (FileChannel channel = FileChannel.open(copy.toPath(), StandardOpenOption.WRITE)) {
+                ByteBuffer all = buffer.duplicate();
+                all.clear();
+                while (all.hasRemaining()) {
+                    channel.write(all);
+                }
+                channel.force(false);
+            }
+            replace(copy, file);
+        } finally {
+            Files.deleteIfExists(copy.toPath());
+        }
+    }
+
+    private static File tempFile(File file) throws IOException {
+        //Same directory, so the move below is a rename on the same file system
+        File directory = file.getAbsoluteFile().getParentFile();
+        return File.createTempFile(file.getName(), ".tmp", directory);
+    }
+
+    private static void replace(File copy, File file) throws IOException {
+        try {
+            Files.move(copy.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(copy.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static long size(int nodeCount) {
+        return HEADER_SIZE + 4L * (nodeCount + 1) + 4L * nodeCount + 2L * nodeCount;
+    }
+
+    int firstChild(int node) {
+        return buffer.getInt(HEADER_SIZE + 4 * node);
+    }
+
+    char label(int node) {
+        return buffer.getChar(labelsOffset + 2 * node);
+    }
+
+    int frequency(int node) {
+        return buffer.getInt(frequenciesOffset + 4 * node);
+    }
+
+    /**
+     * Returns the number of unique words in the trie
+     *
+     * @return The number of unique words in the trie
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Returns the number of nodes in the trie
+     *
+     * @return The number of nodes in the trie
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -0,0 +1,36 @@
+package spell;
+
+/**
+ * Rough heap size estimates for the tries, assuming a 64-bit JVM with compressed references:
+ * 12 byte object headers, 16 byte array headers, 4 byte references, everything padded to 8 bytes.
+ */
+public class MemoryFootprint {
+
+    public static final int OBJECT_HEADER = 12;
+    public static final int ARRAY_HEADER = 16;
+    public static final int REFERENCE = 4;
+
+    public static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    public static long intArray(int length) {
+        return align(ARRAY_HEADER + 4L * length);
+    }
+
+    public static long booleanArray(int length) {
+        return align(ARRAY_HEADER + (long) length);
+    }
+
+    public static long charArray(int length) {
+        return align(ARRAY_HEADER + 2L * length);
+    }
+
+    public static long referenceArray(int length) {
+        return align(ARRAY_HEADER + (long) REFERENCE * length);
+    }
+
+    public static String format(long bytes) {
+        return String.format("%,d bytes (%.1f MB)", bytes, bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,179 @@
+package spell;
+
+/**
+ * A read-only trie stored as three flat tables, shared by <code>CompactTrie</code> (heap arrays)
+ * and <code>MappedTrie</code> (a memory-mapped file).
+ * Nodes are numbered breadth first, so the children of a node are consecutive numbers
+ * sorted by letter: node <code>n</code> has children <code>firstChild(n)</code> up to
+ * <code>firstChild(n + 1) - 1</code>, and <code>label(c)</code> is the letter leading to child
+ * <code>c</code>. Node 0 is the root.
+ */
+public abstract class PackedTrie implements ITrie {
+
+    /**
+     * Returns the number of the first child of <code>node</code>. For <code>node == getNodeCount()</code>
+     * this is one past the last child of the last node.
+     */
+    abstract int firstChild(int node);
+
+    /**
+     * Returns the letter on the edge leading into <code>node</code>
+     */
+    abstract char label(int node);
+
+    /**
+     * Returns the frequency count of the word ending at <code>node</code>, or 0
+     */
+    abstract int frequency(int node);
+
+    /**
+     * A packed trie cannot be changed once it is built
+     *
+     * @throws UnsupportedOperationException Always
+     */
+    public void add(String word) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is read-only");
+    }
+
+    /**
+     * Searches the trie for the specified word
+     *
+     * @param word The word being searched for
+     *
+     * @return A node holding the word's frequency count,
+     * 			or null if the word is not in the trie
+     */
+    public ITrie.INode find(String word) {
+        word = word.toLowerCase();
+        int node = 0;
+        for (int i = 0; i < word.length(); i++) {
+            node = child(node, word.charAt(i));
+            if (node < 0) {
+                return null;
+            }
+        }
+        int frequency = frequency(node);
+        if (frequency == 0) {
+            return null;
+        }
+        return new Node(frequency);
+    }
+
+    /**
+     * Searches the trie for the first <code>length</code> characters of <code>word</code>,
+     * which must already be lower case, without creating a String
+     *
+     * @param word Buffer holding the word being searched for
+     * @param length Number of characters of the word in <code>word</code>
+     *
+     * @return A node holding the word's frequency count,
+     * 			or null if the word is not in the trie
+     */
+    public ITrie.INode find(char[] word, int length) {
+        int node = 0;
+        for (int i = 0; i < length; i++) {
+            node = child(node, word[i]);
+            if (node < 0) {
+                return null;
+            }
+        }
+        int frequency = frequency(node);
+        if (frequency == 0) {
+            return null;
+        }
+        return new Node(frequency);
+    }
+
+    /**
+     * Returns the number of the child of <code>node</code> reached by <code>c</code>, or -1.
+     */
+    int child(int node, char c) {
+        //Children are sorted by letter, so this is a binary search over at most 26 labels
+        int low = firstChild(node);
+        int high = firstChild(node + 1) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char label = label(middle);
+            if (label < c) {
+                low = middle + 1;
+            } else if (label > c) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The toString specification is as follows:
+     * For each word, in alphabetical order:
+     * <word>\n
+     */
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        toStringHelper(output, new StringBuilder(), 0);
+        return output.toString();
+    }
+
+    private void toStringHelper(StringBuilder output, StringBuilder base, int node) {
+        if (frequency(node) != 0) {
+            output.append(base).append('\n');
+        }
+        for (int child = firstChild(node); child < firstChild(node + 1); child++) {
+            base.append(label(child));
+            toStringHelper(output, base, child);
+            base.setLength(base.length() - 1);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = getWordCount() * 3 + getNodeCount() * 7;
+        for (int node = 0; node < getNodeCount(); node++) {
+            hash = hash * 31 + label(node);
+            hash = hash * 31 + frequency(node);
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        if (o == this) {
+            return true;
+        }
+        PackedTrie trie = (PackedTrie) o;
+        if (trie.getWordCount() != this.getWordCount() || trie.getNodeCount() != this.getNodeCount()) {
+            return false;
+        }
+        //Breadth first numbering is unique for a given set of words, so equal tries have equal tables
+        for (int node = 0; node < getNodeCount(); node++) {
+            if (trie.firstChild(node) != this.firstChild(node) || trie.label(node) != this.label(node)
+                    || trie.frequency(node) != this.frequency(node)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static class Node implements ITrie.INode {
+        private final int value;
+
+        Node(int value) {
+            this.value = value;
+        }
+
+        /**
+         * Returns the frequency count for the word represented by the node
+         *
+         * @return The frequency count for the word represented by the node
+         */
+        public int getValue() {
+            return value;
+        }
+    }
+}
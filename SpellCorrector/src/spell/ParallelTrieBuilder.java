@@ -0,0 +1,87 @@
+package spell;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Builds a <code>Trie</code> on several threads. Words are split into shards by their first
+ * letter, each shard is added to a Trie of its own on a ForkJoinPool, and the subtries hanging
+ * off those roots are then stitched under one root with their counts summed. No two shards
+ * share a node, so nothing is locked, and the result equals the Trie adding the words one by
+ * one would build.
+ */
+public class ParallelTrieBuilder {
+
+    private final ForkJoinPool pool;
+
+    public ParallelTrieBuilder() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelTrieBuilder(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Builds a Trie holding every word, with a frequency of the number of times it is listed.
+     *
+     * @param words The (lower case) words, with repeats
+     * @param alphabet The letters the words use
+     * @return The Trie
+     * @throws IllegalArgumentException If a word uses a letter outside the alphabet
+     */
+    public Trie build(List<String> words, Alphabet alphabet) {
+        //Sorted by letter, so the shards are stitched in alphabetical order like add would
+        Map<Character, List<String>> shards = new TreeMap<>();
+        Trie trie = new Trie(alphabet);
+        for (String word : words) {
+            if (word.isEmpty()) {
+                trie.add(word);
+                continue;
+            }
+            shards.computeIfAbsent(word.charAt(0), c -> new ArrayList<>()).add(word);
+        }
+
+        List<ForkJoinTask<Trie>> tasks = new ArrayList<>(shards.size());
+        for (List<String> shard : shards.values()) {
+            tasks.add(pool.submit(() -> {
+                Trie subtrie = new Trie(alphabet);
+                for (String word : shard) {
+                    subtrie.add(word);
+                }
+                return subtrie;
+            }));
+        }
+
+        for (ForkJoinTask<Trie> task : tasks) {
+            Trie subtrie;
+            try {
+                subtrie = task.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while building the trie", ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof IllegalArgumentException) {
+                    throw (IllegalArgumentException) ex.getCause();
+                }
+                throw new IllegalStateException("Building the trie failed", ex.getCause());
+            }
+            //Each subtrie's root has a single child: the shard's letter
+            for (int i = 0; i < subtrie.root.letters.length; i++) {
+                if (subtrie.root.letters[i] != null) {
+                    char letter = subtrie.root.letter(i, alphabet);
+                    trie.root.setChild(letter, subtrie.root.letters[i], alphabet);
+                }
+            }
+            //Both roots are counted, but only one is kept
+            trie.nodeCount += subtrie.nodeCount - 1;
+            trie.wordCount += subtrie.wordCount;
+        }
+        return trie;
+    }
+}
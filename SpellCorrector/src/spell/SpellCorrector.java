@@ -3,41 +3,366 @@ package spell;
 import com.sun.jdi.ClassType;
 
 import javax.sound.midi.SysexMessage;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Scanner;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class SpellCorrector implements ISpellCorrector {
-    Trie dictionary;
+
+    /**
+     * How <code>suggestSimilarWord</code> finds the words near the input.
+     * All modes suggest the same word.
+     */
+    public enum LookupMode {
+        /** Generate every distance 1 and 2 variant and probe the Trie for each */
+        VARIANTS,
+        /** Probe a symmetric-delete index built by useDictionary */
+        DELETE_INDEX,
+        /** Walk the Trie with a bounded edit distance search */
+        TRIE_SEARCH
+    }
+
+    //Replaced as a whole by every reload, so lookups never see a half-built dictionary
+    volatile LoadedDictionary loaded;
+    //Bumped by every reload, after loaded is replaced, so memos can tell the dictionary changed
+    volatile long dictionaryGeneration;
+    LookupMode lookupMode;
+    //Can be replaced while suggestTopK runs, so each call reads it once
+    volatile EditWeights editWeights;
+    //Optional, and emptied whenever the dictionary changes. Can be set while lookups run, so
+    //each reads it once
+    volatile CorrectionCache cache;
+    //Whether dictionaries are read as UTF-8 words of any script
+    boolean unicode;
+    //If set, useDictionary builds the Trie on this pool
+    ForkJoinPool loadPool;
+    //Optional, used to choose between equally close words given the previous word. Can be
+    //replaced while lookups run, so each reads it once
+    volatile BigramModel bigrams;
+    //Optional; lookups are only timed when there is one. Read once per lookup, like the cache
+    volatile LookupListener listener;
 
     public SpellCorrector() {
+        this(LookupMode.DELETE_INDEX);
+    }
+
+    public SpellCorrector(LookupMode lookupMode) {
         //The Trie is initialized to Null
-        dictionary = new Trie();
+        loaded = new LoadedDictionary(new Trie(), new DeleteIndex(), null);
+        this.lookupMode = lookupMode;
+        editWeights = EditWeights.DEFAULT;
+    }
+
+    /**
+     * Sets the edit costs <code>suggestTopK</code> ranks candidates with.
+     */
+    public void setEditWeights(EditWeights editWeights) {
+        this.editWeights = editWeights;
+    }
+
+    /**
+     * Puts a cache in front of <code>suggestSimilarWord</code>, or removes it if null.
+     */
+    public void setCache(CorrectionCache cache) {
+        this.cache = cache;
+    }
+
+    public CorrectionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Whether <code>useDictionary</code> reads UTF-8 words of any script (letters, digits and
+     * apostrophes) instead of ASCII letters only. The Trie's alphabet is then the set of
+     * characters the dictionary uses, and edits are made with those characters.
+     */
+    public void setUnicode(boolean unicode) {
+        this.unicode = unicode;
+    }
+
+    /**
+     * Sets the bigram counts <code>suggestSimilarWord(String, String)</code> ranks words at the
+     * same distance with, or removes them if null.
+     */
+    public void setBigramModel(BigramModel bigrams) {
+        this.bigrams = bigrams;
+    }
+
+    /**
+     * Counts the bigrams of a corpus (which may be the dictionary file itself) for ranking
+     * words at the same distance by the word before them.
+     *
+     * @param corpusFileName File of running text
+     * @throws IOException If the file cannot be read
+     */
+    public void useBigrams(String corpusFileName) throws IOException {
+        bigrams = BigramModel.fromCorpus(new File(corpusFileName), unicode);
+    }
+
+    /**
+     * Sets the listener told about every <code>suggestSimilarWord</code> lookup, with or without a
+     * previous word (for example a <code>LookupMetrics</code>), or removes it if null.
+     */
+    public void setLookupListener(LookupListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Makes <code>useDictionary</code> build the Trie in parallel on <code>pool</code> (see
+     * <code>ParallelTrieBuilder</code>), with the delete index built alongside it, or
+     * sequentially again if null. This holds every word of the file in memory while loading.
+     */
+    public void setLoadPool(ForkJoinPool pool) {
+        this.loadPool = pool;
     }
 
     /**
      * Tells this <code>SpellCorrector</code> to use the given file as its dictionary
      * for generating suggestions.
+     * The new dictionary is built off to the side and swapped in once it is complete, so
+     * other threads can keep calling <code>suggestSimilarWord</code> during a reload and get
+     * answers from the old dictionary until then.
      *
      * @param dictionaryFileName File containing the words to be used
      * @throws IOException If the file cannot be read
      */
-    public void useDictionary(String dictionaryFileName) throws IOException {
-        dictionary.reset();
-        //Clear the Dictionary first before adding new words.
-        //If it's a valid file, load it and add all the words into the Dictionary Trie
+    public synchronized void useDictionary(String dictionaryFileName) throws IOException {
         File file = new File(dictionaryFileName);
-        Scanner scanner = new Scanner(file);
-        while (scanner.hasNext()) {
-            String word = scanner.next();
-            if (word.matches("^[a-zA-Z]+$")) {
+        Alphabet alphabet = unicode ? readAlphabet(file) : Alphabet.ASCII;
+        if (loadPool != null) {
+            loadInParallel(file, alphabet);
+            return;
+        }
+        Trie dictionary = new Trie(alphabet);
+        DeleteIndex deleteIndex = new DeleteIndex();
+        //If it's a valid file, load it and add all the words into the Dictionary Trie
+        //WordReader only returns words made of letters, already in lower case
+        try (WordReader reader = new WordReader(file, unicode)) {
+            String word;
+            while ((word = reader.next()) != null) {
+                if (lookupMode == LookupMode.DELETE_INDEX && dictionary.find(word) == null) //Only index each unique word once
+                {
+                    deleteIndex.add(word);
+                }
                 dictionary.add(word);
             }
         }
+        swap(new LoadedDictionary(dictionary, deleteIndex, null));
+    }
+
+    private void loadInParallel(File file, Alphabet alphabet) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (WordReader reader = new WordReader(file, unicode)) {
+            String word;
+            while ((word = reader.next()) != null) {
+                words.add(word);
+            }
+        }
+        DeleteIndex deleteIndex = new DeleteIndex();
+        ForkJoinTask<?> indexing = null;
+        if (lookupMode == LookupMode.DELETE_INDEX) {
+            //Each unique word once, in the order the sequential load indexes them
+            Set<String> unique = new LinkedHashSet<>(words);
+            indexing = loadPool.submit(() -> {
+                for (String word : unique) {
+                    deleteIndex.add(word);
+                }
+            });
+        }
+        Trie dictionary = new ParallelTrieBuilder(loadPool).build(words, alphabet);
+        if (indexing != null) {
+            try {
+                indexing.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while indexing", ex);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Indexing failed", ex.getCause());
+            }
+        }
+        swap(new LoadedDictionary(dictionary, deleteIndex, null));
+    }
+
+    /**
+     * Tells this <code>SpellCorrector</code> to use an already built Trie as its dictionary,
+     * for example a <code>ConcurrentTrie.snapshot()</code> of words learned while serving.
+     * It is swapped in the same way as a dictionary file, with the delete index built for it
+     * first if the mode needs one. The Trie must not be changed afterwards.
+     *
+     * @param dictionary The words to be used
+     */
+    public synchronized void useTrie(Trie dictionary) {
+        DeleteIndex deleteIndex = new DeleteIndex();
+        if (lookupMode == LookupMode.DELETE_INDEX) {
+            for (String word : dictionary) {
+                deleteIndex.add(word);
+            }
+        }
+        swap(new LoadedDictionary(dictionary, deleteIndex, null));
+    }
+
+    /**
+     * Changes the frequencies of some words without reloading the whole dictionary.
+     * Each line of the diff file is a word, optionally followed by a signed frequency delta
+     * (1 if there is none). New words are added, and a word whose frequency drops to 0 is
+     * removed. As with <code>useDictionary</code>, the changed dictionary is swapped in whole,
+     * but it shares every Trie node and index entry the diff does not touch with the old one.
+     *
+     * @param diffFileName File containing the changes
+     * @throws IOException If the file cannot be read, or has a bad line, a letter outside the
+     *          dictionary's alphabet, or a delta that takes a frequency below 0
+     * @throws IllegalStateException If the dictionary is a snapshot, which cannot be changed
+     */
+    public synchronized void applyDiff(String diffFileName) throws IOException {
+        LoadedDictionary current = loaded;
+        if (current.packed != null) {
+            throw new IllegalStateException("A snapshot cannot be changed, load a dictionary instead");
+        }
+        Map<String, Integer> deltas = readDiff(new File(diffFileName));
+        Trie dictionary;
+        try {
+            dictionary = current.trie.withDeltas(deltas);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(diffFileName + ": " + ex.getMessage(), ex);
+        }
+        DeleteIndex deleteIndex = current.deleteIndex;
+        if (lookupMode == LookupMode.DELETE_INDEX) {
+            List<String> added = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            for (String word : deltas.keySet()) {
+                boolean before = current.trie.find(word) != null;
+                boolean after = dictionary.find(word) != null;
+                if (!before && after) {
+                    added.add(word);
+                } else if (before && !after) {
+                    removed.add(word);
+                }
+            }
+            deleteIndex = deleteIndex.withChanges(added, removed);
+        }
+        swap(new LoadedDictionary(dictionary, deleteIndex, null));
+    }
+
+    /**
+     * Reads the lines of a diff file, adding up the deltas of words listed more than once.
+     */
+    private static Map<String, Integer> readDiff(File file) throws IOException {
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String[] fields = line.trim().split("\\s+");
+                if (fields[0].isEmpty()) {
+                    continue;
+                }
+                if (fields.length > 2) {
+                    throw new IOException(file + ":" + lineNumber + ": expected a word and a delta");
+                }
+                int delta = 1;
+                if (fields.length == 2) {
+                    try {
+                        delta = Integer.parseInt(fields[1]);
+                    } catch (NumberFormatException ex) {
+                        throw new IOException(file + ":" + lineNumber + ": bad delta " + fields[1]);
+                    }
+                }
+                deltas.merge(fields[0].toLowerCase(), delta, Integer::sum);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * Makes <code>next</code> the dictionary every lookup from now on uses, and empties the
+     * cache. The cache is cleared after the swap, so no correction worked out against the old
+     * dictionary can be cached once it is done.
+     */
+    private void swap(LoadedDictionary next) {
+        loaded = next;
+        dictionaryGeneration++;
+        CorrectionCache current = cache;
+        if (current != null) {
+            current.clear();
+        }
+    }
+
+    /**
+     * Reads the file once to find the characters its words use. Pure a to z dictionaries
+     * get <code>Alphabet.ASCII</code>, so they keep the dense 26 slot nodes.
+     */
+    private static Alphabet readAlphabet(File file) throws IOException {
+        boolean[] used = new boolean[Character.MAX_VALUE + 1];
+        try (WordReader reader = new WordReader(file, true)) {
+            String word;
+            while ((word = reader.next()) != null) {
+                for (int i = 0; i < word.length(); i++) {
+                    used[word.charAt(i)] = true;
+                }
+            }
+        }
+        return Alphabet.of(used);
+    }
+
+    /**
+     * Writes the loaded dictionary as a binary snapshot that <code>useSnapshot</code> can open.
+     * If the dictionary is itself a snapshot, that snapshot is copied.
+     *
+     * @param snapshotFileName File to write the snapshot to
+     * @throws IOException If the file cannot be written
+     */
+    public void writeSnapshot(String snapshotFileName) throws IOException {
+        LoadedDictionary current = loaded;
+        if (current.packed instanceof MappedTrie) {
+            ((MappedTrie) current.packed).write(new File(snapshotFileName));
+        } else if (current.packed != null) {
+            throw new IllegalStateException("Only a Trie or a mapped snapshot can be written as a snapshot");
+        } else {
+            MappedTrie.write(current.trie, new File(snapshotFileName));
+        }
+    }
+
+    /**
+     * Tells this <code>SpellCorrector</code> to use a snapshot written by <code>writeSnapshot</code>
+     * as its dictionary. The snapshot is memory-mapped and searched in place, so nothing is
+     * rebuilt and it does not have to fit in the heap. Lookups walk the mapped trie the way
+     * <code>TRIE_SEARCH</code> does unless the mode is <code>VARIANTS</code>.
+     *
+     * @param snapshotFileName File containing the snapshot
+     * @throws IOException If the file cannot be read or is not a snapshot
+     */
+    public synchronized void useSnapshot(String snapshotFileName) throws IOException {
+        swap(new LoadedDictionary(new Trie(), new DeleteIndex(), MappedTrie.open(new File(snapshotFileName))));
+    }
+
+    /**
+     * The dictionary lookups should use: the snapshot if one is open, otherwise the Trie.
+     */
+    ITrie words() {
+        return loaded.words();
+    }
+
+    /**
+     * The letters edits are made with: those of the snapshot if one is open, otherwise the Trie's.
+     */
+    Alphabet alphabet() {
+        return loaded.alphabet();
     }
 
     /**
@@ -49,21 +374,276 @@ public class SpellCorrector implements ISpellCorrector {
      */
     public String suggestSimilarWord(String inputWord) {
         inputWord = inputWord.toLowerCase();
-        if (dictionary.find(inputWord) != null) //The word is in the Trie
+        LookupListener current = listener;
+        CorrectionCache c = cache;
+        if (current != null) {
+            return tracedLookup(inputWord, current, trace ->
+                    c != null ? c.get(trace.word, word -> lookup(word, trace)) : lookup(trace.word, trace));
+        }
+        if (c != null) {
+            return c.get(inputWord, this::lookup);
+        }
+        return lookup(inputWord);
+    }
+
+    /**
+     * Runs a lookup of a lower case word that fills in a trace, then tells <code>listener</code>.
+     */
+    private String tracedLookup(String inputWord, LookupListener listener, Function<LookupTrace, String> lookup) {
+        long start = System.nanoTime();
+        LookupTrace trace = new LookupTrace(inputWord, lookupMode);
+        String suggestion = lookup.apply(trace);
+        trace.totalNanos = System.nanoTime() - start;
+        trace.suggestion = suggestion;
+        if (suggestion != null) {
+            trace.distance = suggestion.equals(inputWord) ? 0 : DeleteIndex.distance(inputWord, suggestion, DeleteIndex.MAX_DISTANCE);
+        }
+        listener.lookupFinished(trace);
+        return suggestion;
+    }
+
+    /**
+     * Like <code>suggestSimilarWord(String)</code>, but when several dictionary words are equally
+     * close to <code>inputWord</code>, the one that most often followed <code>previousWord</code>
+     * in the bigram corpus wins, before frequency and alphabetical order. Without a bigram model,
+     * a previous word, or any bigrams for it, this is <code>suggestSimilarWord(inputWord)</code>.
+     * These lookups bypass the cache, which has no context.
+     *
+     * @param inputWord The word to correct
+     * @param previousWord The word before it, or null
+     * @return The suggestion or null if there is no similar word in the dictionary
+     */
+    public String suggestSimilarWord(String inputWord, String previousWord) {
+        BigramModel model = bigrams;
+        int previousId = model == null || previousWord == null ? 0 : model.id(previousWord.toLowerCase());
+        if (previousId == 0) {
+            return suggestSimilarWord(inputWord);
+        }
+        inputWord = inputWord.toLowerCase();
+        LookupListener current = listener;
+        if (current != null) {
+            return tracedLookup(inputWord, current, trace -> lookup(trace.word, model, previousId, trace));
+        }
+        return lookup(inputWord, model, previousId, null);
+    }
+
+    /**
+     * Finds the suggestion for a lower case word after the word numbered <code>previousId</code>
+     * in <code>model</code>, recording the candidates and times in <code>trace</code> unless it
+     * is null.
+     */
+    private String lookup(String inputWord, BigramModel model, int previousId, LookupTrace trace) {
+        LoadedDictionary current = loaded;
+        long start = 0;
+        if (trace != null) {
+            trace.computed = true;
+            start = System.nanoTime();
+        }
+        if (current.words().find(inputWord) != null) //The word is in the Trie
         {
+            if (trace != null) {
+                trace.probeNanos = System.nanoTime() - start;
+            }
             return inputWord;
-        } else if (getBestWord(getVariants(inputWord)) != null) //If Distance 1
-        {
-            return getBestWord(getVariants(inputWord));
-        } else //If Distance 2 Words
+        }
+        if (lookupMode != LookupMode.DELETE_INDEX || current.packed != null) {
+            BigramSearch search = new BigramSearch(inputWord, DeleteIndex.MAX_DISTANCE, model, previousId);
+            String suggestion = search.search(current.words());
+            if (trace != null) {
+                trace.probeNanos = System.nanoTime() - start;
+                trace.phasesCombined = true;
+                trace.candidates = search.visited;
+            }
+            return suggestion;
+        }
+        //Same as lookup, but the closest candidates are ranked with the bigrams first
+        Set<String> candidates = current.deleteIndex.candidates(inputWord);
+        long generated = 0;
+        if (trace != null) {
+            generated = System.nanoTime();
+            trace.generationNanos = generated - start;
+            trace.candidates = candidates.size();
+        }
+        String best = null;
+        int bestDistance = DeleteIndex.MAX_DISTANCE + 1;
+        int bestBigram = 0;
+        int bestFrequency = 0;
+        for (String candidate : candidates) {
+            int distance = DeleteIndex.distance(inputWord, candidate, DeleteIndex.MAX_DISTANCE);
+            //Sharing a delete does not make a word close enough, and only the closest words compete
+            if (distance > DeleteIndex.MAX_DISTANCE || distance > bestDistance) {
+                continue;
+            }
+            int bigram = model.count(previousId, candidate);
+            int frequency = current.trie.find(candidate).getValue();
+            if (distance < bestDistance || bigram > bestBigram
+                    || (bigram == bestBigram && (frequency > bestFrequency
+                    || (frequency == bestFrequency && candidate.compareTo(best) < 0)))) {
+                best = candidate;
+                bestDistance = distance;
+                bestBigram = bigram;
+                bestFrequency = frequency;
+            }
+        }
+        if (trace != null) {
+            trace.probeNanos = System.nanoTime() - generated;
+        }
+        return best;
+    }
+
+    /**
+     * Corrects a sequence of words, using each word's correction (or the word itself if it
+     * has none) as the previous word of the next.
+     *
+     * @param words The words to correct, in order
+     * @return The suggestion for each word, with null where there is no similar word
+     */
+    public List<String> suggestSimilarWords(List<String> words) {
+        List<String> suggestions = new ArrayList<>(words.size());
+        String previous = null;
+        for (String word : words) {
+            String suggestion = suggestSimilarWord(word, previous);
+            suggestions.add(suggestion);
+            previous = suggestion != null ? suggestion : word;
+        }
+        return suggestions;
+    }
+
+    /**
+     * Finds the suggestion for a lower case word with the current lookup mode.
+     */
+    private String lookup(String inputWord) {
+        return lookup(inputWord, null);
+    }
+
+    /**
+     * Same as above, recording the candidates and times in <code>trace</code> unless it is null.
+     */
+    private String lookup(String inputWord, LookupTrace trace) {
+        //Read once, so a reload halfway through cannot mix two dictionaries
+        LoadedDictionary current = loaded;
+        long start = 0;
+        if (trace != null) {
+            trace.computed = true;
+            start = System.nanoTime();
+        }
+        if (lookupMode == LookupMode.VARIANTS) {
+            return suggestFromVariants(inputWord, current, trace);
+        }
+        if (current.words().find(inputWord) != null) //The word is in the Trie
         {
-            Set<String> distance2 = new HashSet<>();
-            for (String word : getVariants(inputWord)) {
+            if (trace != null) {
+                trace.probeNanos = System.nanoTime() - start;
+            }
+            return inputWord;
+        }
+        if (current.packed != null || lookupMode == LookupMode.TRIE_SEARCH) {
+            TrieSearch search = new TrieSearch(inputWord, DeleteIndex.MAX_DISTANCE);
+            String suggestion = current.packed != null ? search.search(current.packed) : search.search(current.trie);
+            if (trace != null) {
+                trace.probeNanos = System.nanoTime() - start;
+                trace.phasesCombined = true;
+                trace.candidates = search.visited;
+            }
+            return suggestion;
+        }
+        //Gather the dictionary words sharing a delete with the input, then keep the best one
+        //at the smallest edit distance (1, then 2)
+        Set<String> candidates = current.deleteIndex.candidates(inputWord);
+        long generated = 0;
+        if (trace != null) {
+            generated = System.nanoTime();
+            trace.generationNanos = generated - start;
+            trace.candidates = candidates.size();
+        }
+        Set<String> distance1 = new HashSet<>();
+        Set<String> distance2 = new HashSet<>();
+        for (String candidate : candidates) {
+            int distance = DeleteIndex.distance(inputWord, candidate, DeleteIndex.MAX_DISTANCE);
+            if (distance == 1) {
+                distance1.add(candidate);
+            } else if (distance == 2) {
+                distance2.add(candidate);
+            }
+        }
+        String suggestion = getBestWord(!distance1.isEmpty() ? distance1 : distance2, current.trie);
+        if (trace != null) {
+            trace.probeNanos = System.nanoTime() - generated;
+        }
+        return suggestion;
+    }
 
-                distance2.addAll(getVariants(word));
+    /**
+     * Suggests up to <code>k</code> dictionary words within two edits of <code>inputWord</code>,
+     * best first. Unlike <code>suggestSimilarWord</code>, candidates are ranked by a noisy-channel
+     * score that weighs each kind of edit (see <code>EditWeights</code>) against the word's
+     * frequency, so a distance 2 word can outrank a distance 1 word. The input itself is
+     * included if it is in the dictionary.
+     *
+     * @param inputWord The word to correct
+     * @param k The number of suggestions wanted
+     * @return The suggestions, best first, possibly fewer than <code>k</code>
+     */
+    public List<String> suggestTopK(String inputWord, int k) {
+        inputWord = inputWord.toLowerCase();
+        TopKCollector collector = new TopKCollector(k);
+        LoadedDictionary current = loaded;
+        EditWeights weights = editWeights;
+        if (lookupMode == LookupMode.DELETE_INDEX && current.packed == null) {
+            for (String candidate : current.deleteIndex.candidates(inputWord)) {
+                //Most candidates are too far away, which the bounded cost finds out after a row
+                //or two, so only the rest are looked up in the trie
+                double cost = weights.cost(candidate, inputWord, DeleteIndex.MAX_DISTANCE);
+                if (cost != Double.POSITIVE_INFINITY) {
+                    int frequency = current.trie.find(candidate).getValue();
+                    collector.offer(candidate, frequency, cost);
+                }
             }
-            return getBestWord(distance2);
+        } else {
+            new TopKSearch(inputWord, DeleteIndex.MAX_DISTANCE, weights, collector).walk(current.words());
         }
+        return collector.result();
+    }
+
+    /**
+     * The original lookup: tries every distance 1 variant, then every variant of those at
+     * distance 2, probing the Trie for each. The variants are generated in place in two reusable
+     * buffers, and only the winning word becomes a String.
+     */
+    String suggestFromVariants(String inputWord) {
+        return suggestFromVariants(inputWord.toLowerCase(), loaded, null);
+    }
+
+    private String suggestFromVariants(String inputWord, LoadedDictionary current, LookupTrace trace) {
+        long start = trace != null ? System.nanoTime() : 0;
+        ITrie words = current.words();
+        if (words.find(inputWord) != null) //The word is in the Trie
+        {
+            if (trace != null) {
+                trace.probeNanos = System.nanoTime() - start;
+            }
+            return inputWord;
+        }
+        char[] word = inputWord.toCharArray();
+        int length = word.length;
+        char[] distance1 = new char[length + 1];
+        char[] distance2 = new char[length + 2];
+        Alphabet alphabet = current.alphabet();
+        EditGenerator.BestWord best = new EditGenerator.BestWord(words, length + 2);
+        EditGenerator.forEachEdit(word, length, distance1, alphabet, best);
+        //If Distance 2 Words
+        if (!best.found()) {
+            EditGenerator.forEachEdit(word, length, distance1, alphabet,
+                    (variant, variantLength) -> EditGenerator.forEachEdit(variant, variantLength, distance2, alphabet, best));
+        }
+        if (trace != null) {
+            //A probe can take less time than reading the clock, so generating and probing are
+            //timed together
+            trace.probeNanos = System.nanoTime() - start;
+            trace.phasesCombined = true;
+            trace.candidates = best.visits;
+        }
+        return best.word();
     }
 
     public Set<String> getVariants(String inputWord) {
@@ -77,29 +657,24 @@ public class SpellCorrector implements ISpellCorrector {
     }
 
     public String getBestWord(Set<String> words) {
+        return getBestWord(words, words());
+    }
+
+    private static String getBestWord(Set<String> words, ITrie dictionary) {
         String bestWord = null;
         int bestWordValue = 0;
         for (String word : words) {
-            if (dictionary.find(word) != null)//It's in the dictionary
+            ITrie.INode node = dictionary.find(word);
+            if (node != null)//It's in the dictionary
             {
-                if (dictionary.find(word).getValue() >= bestWordValue) {
-                    if (bestWord == null)
-                    {
-                        bestWord = word;
-                        bestWordValue = dictionary.find(word).getValue();
-                    }
-                    if (word.compareTo(bestWord) <= 0) //word is first alphabetically, or the exact same word
-                    {
-                        bestWord = word;
-                        bestWordValue = dictionary.find(word).getValue();
-                    }
+                //Highest frequency wins, ties go to the word that is first alphabetically
+                if (bestWord == null || node.getValue() > bestWordValue
+                        || (node.getValue() == bestWordValue && word.compareTo(bestWord) < 0)) {
+                    bestWord = word;
+                    bestWordValue = node.getValue();
                 }
             }
         }
-//        words.stream()
-//                .map((word) -> dictionary.find(word))
-//                .filter((node) -> node != null)
-//                .collect(Collectors.toSet());
         return bestWord;
     }
 
@@ -131,10 +706,10 @@ public class SpellCorrector implements ISpellCorrector {
         for (int i = 0; i < word.length(); i++)//Each letter in the word
         {
             char[] chars = word.toCharArray();
-            for (int j = 0; j < 26; j++)//Each letter in the alphabet
+            for (char letter : alphabet().letters)//Each letter in the alphabet
             {
-                if (word.charAt(i) != (char) (j + 'a')) {
-                    chars[i] = (char) (j + 'a');
+                if (word.charAt(i) != letter) {
+                    chars[i] = letter;
                     alteration1.add(String.valueOf(chars));
                 }
             }
@@ -147,9 +722,9 @@ public class SpellCorrector implements ISpellCorrector {
     public Set<String> insertionDistance1(String word) {
         Set<String> insertion1 = new HashSet<>();
         for (int i = 0; i <= word.length(); i++) {
-            for (int j = 0; j < 26; j++) {
+            for (char letter : alphabet().letters) {
                 StringBuilder builder = new StringBuilder(word);
-                builder.insert(i, (char) (j + 'a'));
+                builder.insert(i, letter);
                 insertion1.add(builder.toString());
             }
         }
@@ -0,0 +1,45 @@
+package spell;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+/**
+ * Handles a /stats request from the CorrectionServer: the latency histograms of the single
+ * and batched correction requests, followed by the lookup metrics if there are any, as plain
+ * text.
+ */
+public class StatsHandler implements HttpHandler {
+
+    private final LatencyHistogram singleLatency;
+    private final LatencyHistogram batchLatency;
+    //May be null
+    private final LookupMetrics lookupMetrics;
+
+    public StatsHandler(LatencyHistogram singleLatency, LatencyHistogram batchLatency, LookupMetrics lookupMetrics) {
+        this.singleLatency = singleLatency;
+        this.batchLatency = batchLatency;
+        this.lookupMetrics = lookupMetrics;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().toLowerCase().equals("get")) {
+                CorrectHandler.send(exchange, HttpURLConnection.HTTP_BAD_METHOD, "Use GET\n");
+                return;
+            }
+            StringBuilder output = new StringBuilder();
+            singleLatency.writeTo(output, "single");
+            batchLatency.writeTo(output, "batch");
+            if (lookupMetrics != null) {
+                lookupMetrics.writeTo(output);
+            }
+            CorrectHandler.send(exchange, HttpURLConnection.HTTP_OK, output.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -21,9 +21,9 @@ public class Test {
         SpellCorrector spellCorrector = new SpellCorrector();
         spellCorrector.useDictionary(s);
 
-        //System.out.print(spellCorrector.dictionary.toString());
-        System.out.println("Node Count: " + spellCorrector.dictionary.nodeCount);
-        System.out.println("Word Count: " + spellCorrector.dictionary.wordCount);
+        //System.out.print(spellCorrector.loaded.trie.toString());
+        System.out.println("Node Count: " + spellCorrector.loaded.trie.nodeCount);
+        System.out.println("Word Count: " + spellCorrector.loaded.trie.wordCount);
 
         System.out.println(spellCorrector.suggestSimilarWord("Sherlock"));
     }
@@ -37,12 +37,12 @@ public class Test {
         SpellCorrector spellCorrector2 = new SpellCorrector();
         spellCorrector2.useDictionary(args[1]);
 
-        System.out.println(spellCorrector.dictionary.equals(spellCorrector2.dictionary));
-        System.out.println("1. Node Count: " + spellCorrector.dictionary.nodeCount);
-        System.out.println("1. Word Count: " + spellCorrector.dictionary.wordCount);
+        System.out.println(spellCorrector.loaded.trie.equals(spellCorrector2.loaded.trie));
+        System.out.println("1. Node Count: " + spellCorrector.loaded.trie.nodeCount);
+        System.out.println("1. Word Count: " + spellCorrector.loaded.trie.wordCount);
 
-        System.out.println("2. Node Count: " + spellCorrector2.dictionary.nodeCount);
-        System.out.println("2. Word Count: " + spellCorrector2.dictionary.wordCount);
+        System.out.println("2. Node Count: " + spellCorrector2.loaded.trie.nodeCount);
+        System.out.println("2. Word Count: " + spellCorrector2.loaded.trie.wordCount);
 
     }
 
@@ -0,0 +1,112 @@
+package spell;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Compares reading a dictionary with Scanner and a regular expression per word against
+ * WordReader, over a generated word file of about 100 MB. This class is not used by the
+ * passoff program.
+ *
+ * USAGE: java spell.TokenizerBenchmark [word-file]
+ */
+public class TokenizerBenchmark {
+
+    private static final long FILE_SIZE = 100L * 1024 * 1024;
+    private static final int ROUNDS = 3;
+    private static final long SEED = 240;
+
+    public static void main(String[] args) {
+        try {
+            File file;
+            if (args.length > 0) {
+                file = new File(args[0]);
+            } else {
+                file = generateWordFile(FILE_SIZE, SEED);
+            }
+            System.out.println("Word file: " + file.length() / (1024 * 1024) + " MB");
+
+            //The first round warms up the JIT, so only the last round is reported
+            for (int round = 1; round <= ROUNDS; round++) {
+                System.out.println("Round " + round);
+                long start = System.nanoTime();
+                long scannerHash = readWithScanner(file);
+                long scannerTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                long readerHash = readWithWordReader(file);
+                long readerTime = System.nanoTime() - start;
+
+                System.out.println("Scanner: " + scannerTime / 1000000 + " ms");
+                System.out.println("WordReader: " + readerTime / 1000000 + " ms");
+                if (scannerHash != readerHash) {
+                    System.out.println("The readers accepted different words");
+                }
+            }
+        } catch (IOException ex) {
+            System.out.println("Error");
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * The loop useDictionary used before WordReader. Returns a hash of the accepted words.
+     */
+    private static long readWithScanner(File file) throws IOException {
+        long hash = 0;
+        try (Scanner scanner = new Scanner(file)) {
+            while (scanner.hasNext()) {
+                String word = scanner.next();
+                if (word.matches("^[a-zA-Z]+$")) {
+                    hash = hash * 31 + word.toLowerCase().hashCode();
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static long readWithWordReader(File file) throws IOException {
+        long hash = 0;
+        try (WordReader reader = new WordReader(file)) {
+            String word;
+            while ((word = reader.next()) != null) {
+                hash = hash * 31 + word.hashCode();
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Writes mixed case words separated by spaces, tabs and newlines, with one token in ten
+     * holding a digit or punctuation so that it is rejected.
+     */
+    static File generateWordFile(long size, long seed) throws IOException {
+        Random random = new Random(seed);
+        File file = File.createTempFile("words", ".txt");
+        file.deleteOnExit();
+        byte[] separators = {' ', ' ', ' ', '\n', '\t'};
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            long written = 0;
+            while (written < size) {
+                int length = 1 + random.nextInt(12);
+                boolean reject = random.nextInt(10) == 0;
+                for (int i = 0; i < length; i++) {
+                    int letter = random.nextInt(26);
+                    if (reject && i == length / 2) {
+                        out.write(random.nextBoolean() ? '0' + letter % 10 : '\'');
+                    } else {
+                        out.write(random.nextInt(8) == 0 ? 'A' + letter : 'a' + letter);
+                    }
+                }
+                out.write(separators[random.nextInt(separators.length)]);
+                written += length + 1;
+            }
+        }
+        return file;
+    }
+}
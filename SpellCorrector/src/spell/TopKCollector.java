@@ -0,0 +1,90 @@
+package spell;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the <code>k</code> best scoring words offered to it in a bounded priority queue, so
+ * candidates are ranked as they are generated instead of being collected first. A word is only
+ * turned into a String once it makes it into the queue.
+ */
+public class TopKCollector {
+
+    //Best first: higher score, then first alphabetically
+    private static final Comparator<Suggestion> BEST_FIRST = (a, b) -> {
+        int compare = Double.compare(b.score, a.score);
+        return compare != 0 ? compare : a.word.compareTo(b.word);
+    };
+
+    private final int k;
+    //Worst suggestion at the head, so it is the one replaced
+    private final PriorityQueue<Suggestion> queue;
+
+    public TopKCollector(int k) {
+        this.k = k;
+        this.queue = new PriorityQueue<>(Math.max(1, k), BEST_FIRST.reversed());
+    }
+
+    public void offer(char[] word, int length, int frequency, double cost) {
+        double score = EditWeights.score(frequency, cost);
+        if (k <= 0 || (isFull() && score < queue.peek().score)) {
+            return;
+        }
+        offer(new Suggestion(new String(word, 0, length), score));
+    }
+
+    public void offer(String word, int frequency, double cost) {
+        double score = EditWeights.score(frequency, cost);
+        if (k <= 0 || (isFull() && score < queue.peek().score)) {
+            return;
+        }
+        offer(new Suggestion(word, score));
+    }
+
+    private void offer(Suggestion suggestion) {
+        if (!isFull()) {
+            queue.add(suggestion);
+        } else if (BEST_FIRST.compare(suggestion, queue.peek()) < 0) {
+            queue.poll();
+            queue.add(suggestion);
+        }
+    }
+
+    /**
+     * Returns false if a word scoring at most <code>score</code> can no longer make the top k,
+     * so its exact score does not need to be worked out.
+     */
+    public boolean canAccept(double score) {
+        return k > 0 && (!isFull() || score >= queue.peek().score);
+    }
+
+    private boolean isFull() {
+        return queue.size() >= k;
+    }
+
+    /**
+     * Returns the collected words, best first.
+     */
+    public List<String> result() {
+        List<Suggestion> suggestions = new ArrayList<>(queue);
+        Collections.sort(suggestions, BEST_FIRST);
+        List<String> words = new ArrayList<>(suggestions.size());
+        for (Suggestion suggestion : suggestions) {
+            words.add(suggestion.word);
+        }
+        return words;
+    }
+
+    private static class Suggestion {
+        final String word;
+        final double score;
+
+        Suggestion(String word, double score) {
+            this.word = word;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package spell;
+
+/**
+ * Walks the trie like <code>TrieSearch</code>, but instead of keeping the single best word it
+ * offers every word within the distance to a <code>TopKCollector</code>, scored with
+ * <code>EditWeights</code>. The limit is never tightened, since a costlier edit to a more
+ * frequent word can still rank in the top k.
+ */
+public class TopKSearch extends TrieSearch {
+
+    private final String input;
+    private final EditWeights weights;
+    private final TopKCollector collector;
+
+    public TopKSearch(String input, int maxDistance, EditWeights weights, TopKCollector collector) {
+        super(input, maxDistance);
+        this.input = input;
+        this.weights = weights;
+        this.collector = collector;
+    }
+
+    @Override
+    void found(int length, int distance, int frequency) {
+        //No edits at all is the best this word can score
+        if (collector.canAccept(EditWeights.score(frequency, 0))) {
+            collector.offer(path, length, frequency, weights.cost(path, length, input));
+        }
+    }
+}
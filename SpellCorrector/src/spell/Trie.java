@@ -1,23 +1,52 @@
 package spell;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
 
-public class Trie implements ITrie {
+public class Trie implements ITrie, Iterable<String> {
     int wordCount;
     int nodeCount;
     TrieNode root;
     boolean atEnd;
+    //The letters words may use; a to z unless another alphabet is given
+    Alphabet alphabet;
 
     public Trie() {
+        this(Alphabet.ASCII);
+    }
+
+    public Trie(Alphabet alphabet) {
+        this.alphabet = alphabet;
         wordCount = 0;
         nodeCount = 1;
-        root = new TrieNode();
+        root = newNode();
+    }
+
+    /**
+     * Small alphabets give every node a slot per letter, large ones only store the children.
+     */
+    private TrieNode newNode() {
+        return alphabet.isDense() ? new TrieNode(alphabet.size()) : TrieNode.sparse();
+    }
+
+    public Alphabet getAlphabet() {
+        return alphabet;
     }
 
     /**
      * Adds the specified word to the trie (if necessary) and increments the word's frequency count
      *
      * @param word The word being added to the trie
+     * @throws IllegalArgumentException If the word uses a letter outside the trie's alphabet
      */
     public void add(String word) {
         //Make sure all characters are lower case.
@@ -26,24 +55,29 @@ public class Trie implements ITrie {
         TrieNode node = root;
         for (int i = 0; i < word.length(); i++) //For each character in the word
         {
+            node.structureHash = 0; //The words below it are changing
             char c = word.charAt(i); //Get that character
-            int index = c - 'a'; //Find its index
-            //If that position is null at the node we're on, there is currently no existent node there.
+            TrieNode child = node.child(c, alphabet);
+            //If there is no child for it at the node we're on, there is currently no existent node there.
             //So we make a new node there.
-            if (node.letters[index] == null) {
-                TrieNode tempNode = new TrieNode();
-                node.letters[index] = tempNode;
+            if (child == null) {
+                if (!alphabet.contains(c)) {
+                    throw new IllegalArgumentException("'" + c + "' is not in the alphabet of the trie");
+                }
+                TrieNode tempNode = newNode();
+                node.setChild(c, tempNode, alphabet);
                 node = tempNode; //Then point at the new node we're at.
                 nodeCount += 1;
             } else //otherwise point at that letter
             {
-                node = node.letters[index];
+                node = child;
             }
         }
         if (node.frequencyCount == 0) //If the word we added hasn't been counted yet, (is unique) we count it here.
         {
             wordCount += 1;
         }
+        node.structureHash = 0;
         //We're at the end of the word so we increment the frequency count of the node of the end of the word.
         //System.out.println("Node Frequency Count: " + node.frequencyCount);
         node.frequencyCount += 1;
@@ -61,11 +95,8 @@ public class Trie implements ITrie {
         word = word.toLowerCase();
         TrieNode node = root;
         for (int i = 0; i < word.length(); i++) {
-            char c = word.charAt(i);
-            int index = c - 'a';
-            if (node.letters[index] != null) {
-                node = node.letters[index];
-            } else {
+            node = node.child(word.charAt(i), alphabet);
+            if (node == null) {
                 return null;
             }
         }
@@ -76,6 +107,98 @@ public class Trie implements ITrie {
         }
     }
 
+    /**
+     * Searches the trie for the first <code>length</code> characters of <code>word</code>,
+     * which must already be lower case, without creating a String
+     *
+     * @param word Buffer holding the word being searched for
+     * @param length Number of characters of the word in <code>word</code>
+     *
+     * @return A reference to the trie node that represents the word,
+     * 			or null if the word is not in the trie
+     */
+    public ITrie.INode find(char[] word, int length) {
+        TrieNode node = root;
+        for (int i = 0; i < length; i++) {
+            node = node.child(word[i], alphabet);
+            if (node == null) {
+                return null;
+            }
+        }
+        if (node.frequencyCount == 0) {
+            return null;
+        }
+        return node;
+    }
+
+    /**
+     * Returns a copy of the trie with each word's frequency changed by its delta. This trie is
+     * not changed, so other threads can keep reading it meanwhile, and only the nodes on the
+     * paths of the changed words are copied; every other node is shared with the copy.
+     * A word whose frequency drops to 0 is removed, along with the nodes that then lead to
+     * no word, so the copy equals a trie built from scratch with the new frequencies.
+     *
+     * @param deltas Frequency change of each (lower case) word
+     * @return The changed copy
+     * @throws IllegalArgumentException If a word uses a letter outside the trie's alphabet,
+     *          or a delta would make a frequency negative
+     */
+    public Trie withDeltas(Map<String, Integer> deltas) {
+        Trie copy = new Trie(alphabet);
+        copy.root = root.copy();
+        copy.wordCount = wordCount;
+        copy.nodeCount = nodeCount;
+        //Nodes that belong to the copy alone and can be changed in place
+        Set<TrieNode> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        owned.add(copy.root);
+        for (Map.Entry<String, Integer> delta : deltas.entrySet()) {
+            copy.applyDelta(delta.getKey(), delta.getValue(), owned);
+        }
+        return copy;
+    }
+
+    private void applyDelta(String word, int delta, Set<TrieNode> owned) {
+        TrieNode[] path = new TrieNode[word.length() + 1];
+        path[0] = root;
+        TrieNode node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node.structureHash = 0;
+            char c = word.charAt(i);
+            TrieNode child = node.child(c, alphabet);
+            if (child == null) {
+                if (!alphabet.contains(c)) {
+                    throw new IllegalArgumentException("'" + c + "' is not in the alphabet of the trie");
+                }
+                child = newNode();
+                nodeCount += 1;
+                owned.add(child);
+                node.setChild(c, child, alphabet);
+            } else if (!owned.contains(child)) {
+                child = child.copy();
+                owned.add(child);
+                node.setChild(c, child, alphabet);
+            }
+            node = child;
+            path[i + 1] = node;
+        }
+        int frequency = node.frequencyCount + delta;
+        if (frequency < 0) {
+            throw new IllegalArgumentException("The frequency of " + word + " would be " + frequency);
+        }
+        if (node.frequencyCount == 0 && frequency > 0) {
+            wordCount += 1;
+        } else if (node.frequencyCount > 0 && frequency == 0) {
+            wordCount -= 1;
+        }
+        node.frequencyCount = frequency;
+        node.structureHash = 0;
+        //Drop the nodes that no longer lead to any word
+        for (int i = word.length(); i > 0 && path[i].frequencyCount == 0 && !path[i].hasChildren(); i--) {
+            path[i - 1].removeChild(word.charAt(i - 1), alphabet);
+            nodeCount -= 1;
+        }
+    }
+
     /**
      * Returns the number of unique words in the trie
      *
@@ -94,6 +217,94 @@ public class Trie implements ITrie {
         return nodeCount;
     }
 
+    /**
+     * Estimated heap bytes used by the trie: each node is a TrieNode plus a slot array for the
+     * whole alphabet, or for large alphabets, arrays of just its children and their letters.
+     */
+    public long getMemoryFootprint() {
+        long node = MemoryFootprint.align(MemoryFootprint.OBJECT_HEADER + 4 + 4 + 2 * MemoryFootprint.REFERENCE);
+        long nodes;
+        if (alphabet.isDense()) {
+            nodes = (long) nodeCount * (node + MemoryFootprint.referenceArray(alphabet.size()));
+        } else {
+            //Every node but the root is one child entry: a reference and a char
+            nodes = (long) nodeCount * (node + MemoryFootprint.referenceArray(0) + MemoryFootprint.charArray(0))
+                    + (long) (nodeCount - 1) * (MemoryFootprint.REFERENCE + 2);
+        }
+        return nodes + MemoryFootprint.align(MemoryFootprint.OBJECT_HEADER + 4 + 4 + 2 * MemoryFootprint.REFERENCE + 1);
+    }
+
+    /**
+     * Iterates over every word in alphabetical order. The trie must not be changed meanwhile.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return wordsWithPrefix("").iterator();
+    }
+
+    /**
+     * The words that start with <code>prefix</code> (including the prefix itself), in
+     * alphabetical order. The trie must not be changed while they are iterated over.
+     *
+     * @param prefix The start of the words wanted
+     * @return The words, walked each time they are iterated over
+     */
+    public Iterable<String> wordsWithPrefix(String prefix) {
+        String lowerPrefix = prefix.toLowerCase();
+        TrieNode node = root;
+        for (int i = 0; i < lowerPrefix.length() && node != null; i++) {
+            node = node.child(lowerPrefix.charAt(i), alphabet);
+        }
+        TrieNode start = node;
+        return () -> new Iterator<String>() {
+            private final TrieCursor cursor = new TrieCursor(start, lowerPrefix, alphabet);
+            private boolean ready = cursor.next();
+
+            @Override
+            public boolean hasNext() {
+                return ready;
+            }
+
+            @Override
+            public String next() {
+                if (!ready) {
+                    throw new NoSuchElementException();
+                }
+                String word = new String(cursor.word(), 0, cursor.length());
+                ready = cursor.next();
+                return word;
+            }
+        };
+    }
+
+    /**
+     * Writes every word in alphabetical order, each followed by a newline (the same text as
+     * <code>toString</code>), without building it in memory or creating a String per word.
+     *
+     * @param out Where to write the words
+     * @throws IOException If <code>out</code> throws one
+     */
+    public void writeTo(Appendable out) throws IOException {
+        TrieCursor cursor = new TrieCursor(root, "", alphabet);
+        if (out instanceof Writer) {
+            Writer writer = (Writer) out;
+            while (cursor.next()) {
+                writer.write(cursor.word(), 0, cursor.length());
+                writer.write('\n');
+            }
+            return;
+        }
+        char[] word = null;
+        CharBuffer wrapper = null;
+        while (cursor.next()) {
+            if (cursor.word() != word) {
+                word = cursor.word();
+                wrapper = CharBuffer.wrap(word);
+            }
+            out.append(wrapper, 0, cursor.length()).append('\n');
+        }
+    }
+
     /**
      * The toString specification is as follows:
      * For each word, in alphabetical order:
@@ -102,12 +313,16 @@ public class Trie implements ITrie {
     @Override
     public String toString() {
         StringBuilder output = new StringBuilder();
-        root.toStringHelper(output, "");
+        TrieCursor cursor = new TrieCursor(root, "", alphabet);
+        while (cursor.next()) {
+            output.append(cursor.word(), 0, cursor.length()).append('\n');
+        }
         return output.toString();
     }
     @Override
     public int hashCode() {
-        return wordCount * 3 + nodeCount * 7;
+        //Cached in the nodes, so this only walks what changed since it was last asked for
+        return root.structureHash(alphabet);
     }
 
     @Override
@@ -119,7 +334,12 @@ public class Trie implements ITrie {
             return true;
         }
         Trie trie = (Trie) o;
-        if ((trie.wordCount != this.wordCount) || (trie.nodeCount != this.nodeCount)) {
+        if ((trie.wordCount != this.wordCount) || (trie.nodeCount != this.nodeCount)
+                || !Arrays.equals(trie.alphabet.letters, this.alphabet.letters)) {
+            return false;
+        }
+        //Different hashes mean different words; the hashes are cached, so this is cheap after the first time
+        if (trie.hashCode() != this.hashCode()) {
             return false;
         }
         //Check the whole thing and each member to see if they are exactly the same, if anything is off,
@@ -128,8 +348,16 @@ public class Trie implements ITrie {
     }
 
     public void reset() {
+        reset(alphabet);
+    }
+
+    /**
+     * Empties the trie and switches it to a new alphabet.
+     */
+    public void reset(Alphabet alphabet) {
+        this.alphabet = alphabet;
         wordCount = 0;
         nodeCount = 1;
-        root = new TrieNode();
+        root = newNode();
     }
 }
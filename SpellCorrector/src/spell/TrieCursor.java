@@ -0,0 +1,102 @@
+package spell;
+
+/**
+ * Walks the words below a Trie node in alphabetical order without recursion. The current word
+ * is kept in one reusable buffer and the walk keeps one node and one slot number per level, so
+ * the extra memory depends only on the length of the longest word, not on the size of the trie.
+ * The trie must not be changed during the walk.
+ */
+class TrieCursor {
+
+    private final Alphabet alphabet;
+    //path[0, prefixLength) is the prefix every word shares, the rest is the walk below it
+    private char[] path;
+    private final int prefixLength;
+    //nodes[d] is the node at depth d below the start, slots[d] the next child slot to try,
+    //or -1 while the node's own word has not been visited yet
+    private TrieNode[] nodes;
+    private int[] slots;
+    private int depth;
+
+    /**
+     * @param start The node the words are below, or null for none
+     * @param prefix The letters leading to <code>start</code>
+     */
+    TrieCursor(TrieNode start, String prefix, Alphabet alphabet) {
+        this.alphabet = alphabet;
+        prefixLength = prefix.length();
+        path = new char[prefixLength + 16];
+        prefix.getChars(0, prefixLength, path, 0);
+        nodes = new TrieNode[16];
+        slots = new int[16];
+        nodes[0] = start;
+        slots[0] = -1;
+        depth = start == null ? -1 : 0;
+    }
+
+    /**
+     * Moves to the next word.
+     *
+     * @return false once every word has been visited
+     */
+    boolean next() {
+        while (depth >= 0) {
+            TrieNode node = nodes[depth];
+            int slot = slots[depth];
+            if (slot < 0) {
+                slots[depth] = 0;
+                if (node.frequencyCount > 0) {
+                    return true;
+                }
+                continue;
+            }
+            TrieNode[] letters = node.letters;
+            while (slot < letters.length && letters[slot] == null) {
+                slot++;
+            }
+            if (slot == letters.length) {
+                depth--;
+                continue;
+            }
+            slots[depth] = slot + 1;
+            push(node.letter(slot, alphabet), letters[slot]);
+        }
+        return false;
+    }
+
+    private void push(char letter, TrieNode child) {
+        if (depth + 1 == nodes.length) {
+            TrieNode[] biggerNodes = new TrieNode[nodes.length * 2];
+            System.arraycopy(nodes, 0, biggerNodes, 0, nodes.length);
+            nodes = biggerNodes;
+            int[] biggerSlots = new int[slots.length * 2];
+            System.arraycopy(slots, 0, biggerSlots, 0, slots.length);
+            slots = biggerSlots;
+        }
+        if (prefixLength + depth == path.length) {
+            char[] biggerPath = new char[path.length * 2];
+            System.arraycopy(path, 0, biggerPath, 0, path.length);
+            path = biggerPath;
+        }
+        path[prefixLength + depth] = letter;
+        depth++;
+        nodes[depth] = child;
+        slots[depth] = -1;
+    }
+
+    /**
+     * The buffer holding the current word in its first <code>length()</code> characters. It may
+     * be replaced by a bigger one when the walk goes deeper.
+     */
+    char[] word() {
+        return path;
+    }
+
+    int length() {
+        return prefixLength + depth;
+    }
+
+    int frequency() {
+        return nodes[depth].frequencyCount;
+    }
+}
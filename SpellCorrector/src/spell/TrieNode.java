@@ -1,13 +1,35 @@
 package spell;
 
+import java.util.Arrays;
+
 public class TrieNode implements ITrie.INode {
 
     int frequencyCount;
+    //Dense nodes: one slot per letter of the alphabet, indexed by ordinal.
+    //Sparse nodes: only the children, in the same order as keys.
     TrieNode[] letters;
+    //The letter of each child of a sparse node, sorted; null for dense nodes
+    char[] keys;
+    //Hash of the words below this node, or 0 until it is worked out. Whatever changes the
+    //node or anything below it must set it back to 0, on every node of the path.
+    int structureHash;
 
     public TrieNode() {
+        this(26);
+    }
+
+    public TrieNode(int alphabetSize) {
         frequencyCount = 0;
-        letters = new TrieNode[26];
+        letters = new TrieNode[alphabetSize];
+    }
+
+    /**
+     * Creates a node that only stores the children it has, for large alphabets.
+     */
+    static TrieNode sparse() {
+        TrieNode node = new TrieNode(0);
+        node.keys = new char[0];
+        return node;
     }
 
     /**
@@ -19,42 +41,206 @@ public class TrieNode implements ITrie.INode {
         return frequencyCount;
     }
 
-    public void toStringHelper(StringBuilder builder, String base) {
-        if (frequencyCount != 0) {
-            builder.append(base).append('\n');
+    /**
+     * Returns the letter leading to the child in slot <code>i</code>
+     */
+    char letter(int i, Alphabet alphabet) {
+        return keys != null ? keys[i] : alphabet.letter(i);
+    }
+
+    /**
+     * Returns the child reached by <code>c</code>, or null
+     */
+    TrieNode child(char c, Alphabet alphabet) {
+        if (keys != null) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? letters[i] : null;
+        }
+        int ordinal = alphabet.ordinal(c);
+        return ordinal >= 0 ? letters[ordinal] : null;
+    }
+
+    /**
+     * Stores <code>child</code> as the child reached by <code>c</code>, which must be in the
+     * alphabet, replacing any child already there.
+     */
+    void setChild(char c, TrieNode child, Alphabet alphabet) {
+        structureHash = 0;
+        if (keys == null) {
+            letters[alphabet.ordinal(c)] = child;
+            return;
+        }
+        int i = Arrays.binarySearch(keys, c);
+        if (i >= 0) {
+            letters[i] = child;
+            return;
+        }
+        i = -i - 1;
+        char[] newKeys = new char[keys.length + 1];
+        TrieNode[] newLetters = new TrieNode[letters.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, i);
+        System.arraycopy(letters, 0, newLetters, 0, i);
+        newKeys[i] = c;
+        newLetters[i] = child;
+        System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+        System.arraycopy(letters, i, newLetters, i + 1, letters.length - i);
+        keys = newKeys;
+        letters = newLetters;
+    }
+
+    /**
+     * Removes the child reached by <code>c</code>, if there is one.
+     */
+    void removeChild(char c, Alphabet alphabet) {
+        structureHash = 0;
+        if (keys == null) {
+            int ordinal = alphabet.ordinal(c);
+            if (ordinal >= 0) {
+                letters[ordinal] = null;
+            }
+            return;
+        }
+        int i = Arrays.binarySearch(keys, c);
+        if (i < 0) {
+            return;
+        }
+        char[] newKeys = new char[keys.length - 1];
+        TrieNode[] newLetters = new TrieNode[letters.length - 1];
+        System.arraycopy(keys, 0, newKeys, 0, i);
+        System.arraycopy(letters, 0, newLetters, 0, i);
+        System.arraycopy(keys, i + 1, newKeys, i, newKeys.length - i);
+        System.arraycopy(letters, i + 1, newLetters, i, newLetters.length - i);
+        keys = newKeys;
+        letters = newLetters;
+    }
+
+    boolean hasChildren() {
+        for (TrieNode child : letters) {
+            if (child != null) {
+                return true;
+            }
         }
-        for (int i = 0; i < this.letters.length; i++) {
-            if (this.letters[i] != null) {
-                this.letters[i].toStringHelper(builder, base + (char) (i + 'a'));
+        return false;
+    }
+
+    /**
+     * A new node with the same frequency and children, which can be changed without changing
+     * this one. The children themselves are shared.
+     */
+    TrieNode copy() {
+        TrieNode copy = new TrieNode(0);
+        copy.frequencyCount = frequencyCount;
+        copy.letters = letters.clone();
+        copy.keys = keys == null ? null : keys.clone();
+        return copy;
+    }
+
+    /**
+     * A Merkle-style hash of the words below this node: each node's hash combines its frequency
+     * with the letter and hash of each child, so equal subtries always hash alike. Hashes are
+     * cached in the nodes, so after a change only the nodes on the changed path are hashed
+     * again. The walk uses its own stack rather than recursion.
+     */
+    int structureHash(Alphabet alphabet) {
+        if (structureHash != 0) {
+            return structureHash;
+        }
+        TrieNode[] nodes = new TrieNode[16];
+        int[] slots = new int[16];
+        nodes[0] = this;
+        int depth = 0;
+        while (depth >= 0) {
+            TrieNode node = nodes[depth];
+            TrieNode[] children = node.letters;
+            int slot = slots[depth];
+            //Hash the children that have not been yet before the node itself
+            while (slot < children.length && (children[slot] == null || children[slot].structureHash != 0)) {
+                slot++;
+            }
+            if (slot < children.length) {
+                slots[depth] = slot + 1;
+                if (depth + 1 == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                    slots = Arrays.copyOf(slots, slots.length * 2);
+                }
+                depth++;
+                nodes[depth] = children[slot];
+                slots[depth] = 0;
+                continue;
             }
+            int hash = node.frequencyCount;
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] != null) {
+                    hash = hash * 31 + node.letter(i, alphabet);
+                    hash = hash * 31 + children[i].structureHash;
+                }
+            }
+            hash ^= hash >>> 16;
+            hash *= 0x85ebca6b;
+            hash ^= hash >>> 13;
+            //0 means not worked out yet
+            node.structureHash = hash == 0 ? 1 : hash;
+            depth--;
         }
+        return structureHash;
     }
 
+    /**
+     * Compares the words below two nodes of tries with the same alphabet. The walk uses its
+     * own stack rather than recursion, skips subtries the two share, and gives up as soon as
+     * two subtries whose hashes are already known hash differently.
+     */
     public boolean equalTo(TrieNode node)
     {
-        if(node == null){
-            return false;
-        }
-        if (this.frequencyCount != node.frequencyCount)
-        {
+        if (!sameNode(this, node)) {
             return false;
         }
-        for (int i = 0; i < this.letters.length; i++)
-        {
-            if(this.letters[i] == null)
-            {
-                if (node.letters[i] != null)
-                {
-                    return false;
-                }
+        //One pair of nodes and the next slot to compare per level, like the recursion it replaces
+        TrieNode[] left = new TrieNode[16];
+        TrieNode[] right = new TrieNode[16];
+        int[] slots = new int[16];
+        left[0] = this;
+        right[0] = node;
+        int depth = this == node ? -1 : 0;
+        while (depth >= 0) {
+            TrieNode[] a = left[depth].letters;
+            TrieNode[] b = right[depth].letters;
+            int slot = slots[depth];
+            while (slot < a.length && a[slot] == b[slot]) {
+                slot++; //Both empty, or shared (for example by Trie.withDeltas)
             }
-            else {
-                if(this.letters[i].equalTo(node.letters[i]) == false)
-                {
-                    return false;
-                };
+            if (slot == a.length) {
+                depth--;
+                continue;
             }
+            if (!sameNode(a[slot], b[slot])) {
+                return false;
+            }
+            slots[depth] = slot + 1;
+            if (depth + 1 == left.length) {
+                left = Arrays.copyOf(left, left.length * 2);
+                right = Arrays.copyOf(right, right.length * 2);
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+            depth++;
+            left[depth] = a[slot];
+            right[depth] = b[slot];
+            slots[depth] = 0;
         }
         return true;
     }
+
+    /**
+     * Compares two nodes without their children.
+     */
+    private static boolean sameNode(TrieNode a, TrieNode b) {
+        if (a == null || b == null || a.frequencyCount != b.frequencyCount) {
+            return false;
+        }
+        if (a.structureHash != 0 && b.structureHash != 0 && a.structureHash != b.structureHash) {
+            return false;
+        }
+        //Same alphabet, so the slots line up if the letters of sparse nodes do
+        return a.letters.length == b.letters.length && Arrays.equals(a.keys, b.keys);
+    }
 }
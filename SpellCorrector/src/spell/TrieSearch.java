@@ -0,0 +1,198 @@
+package spell;
+
+/**
+ * Bounded edit distance search that walks a Trie (or PackedTrie) instead of generating variants.
+ * Each level of the walk adds one row of the Damerau-Levenshtein table between the current
+ * trie path and the input word, and a branch is pruned as soon as the smallest value in its
+ * row exceeds the distance still worth finding.
+ * A TrieSearch holds the buffers for one input word and is not thread safe.
+ */
+public class TrieSearch {
+
+    private static final int INFINITY = 1000;
+
+    private final String input;
+    private final int inputLength;
+    //rows[i + 1] is the table row for the first i characters of path
+    private final int[][] rows;
+    final char[] path;
+    //Best word found so far at each distance, copied out of path
+    private final char[][] bestWords;
+    private final int[] bestLengths;
+    private final int[] bestValues;
+    //Largest distance still worth finding; subclasses may tighten it in found
+    int limit;
+    //Letters of the Trie being walked
+    private Alphabet alphabet;
+    //Trie nodes looked at by the walk so far
+    int visited;
+
+    public TrieSearch(String input, int maxDistance) {
+        this.input = input;
+        this.inputLength = input.length();
+        int maxDepth = inputLength + maxDistance;
+        rows = new int[maxDepth + 2][inputLength + 2];
+        path = new char[maxDepth];
+        bestWords = new char[maxDistance + 1][maxDepth];
+        bestLengths = new int[maxDistance + 1];
+        bestValues = new int[maxDistance + 1];
+        limit = maxDistance;
+    }
+
+    /**
+     * Finds the most frequent word (ties go to the first alphabetically) at the smallest edit
+     * distance from the input, the same word <code>SpellCorrector.getBestWord</code> picks from
+     * the distance 1, then distance 2 variants.
+     *
+     * @param trie The dictionary to search
+     * @return The best word, or null if none is within the distance
+     */
+    public String search(Trie trie) {
+        walk(trie);
+        return result();
+    }
+
+    /**
+     * Same as <code>search(Trie)</code>, over a packed trie.
+     */
+    public String search(PackedTrie trie) {
+        walk(trie);
+        return result();
+    }
+
+    /**
+     * Calls <code>found</code> for every word in the trie within the limit.
+     */
+    void walk(ITrie trie) {
+        start();
+        if (trie instanceof PackedTrie) {
+            visitChildren((PackedTrie) trie, 0, 0);
+        } else {
+            alphabet = ((Trie) trie).alphabet;
+            visitChildren(((Trie) trie).root, 0);
+        }
+    }
+
+    private void start() {
+        for (int j = 0; j < rows[0].length; j++) {
+            rows[0][j] = INFINITY;
+        }
+        rows[1][0] = INFINITY;
+        for (int j = 0; j <= inputLength; j++) {
+            rows[1][j + 1] = j;
+        }
+    }
+
+    private String result() {
+        for (int distance = 0; distance < bestValues.length; distance++) {
+            if (bestValues[distance] > 0) {
+                return new String(bestWords[distance], 0, bestLengths[distance]);
+            }
+        }
+        return null;
+    }
+
+    private void visitChildren(TrieNode node, int depth) {
+        if (depth == path.length) {
+            return;
+        }
+        for (int i = 0; i < node.letters.length; i++) {
+            TrieNode child = node.letters[i];
+            if (child != null && visit(depth, node.letter(i, alphabet), child.frequencyCount)) {
+                visitChildren(child, depth + 1);
+            }
+        }
+    }
+
+    private void visitChildren(PackedTrie trie, int node, int depth) {
+        if (depth == path.length) {
+            return;
+        }
+        int end = trie.firstChild(node + 1);
+        for (int child = trie.firstChild(node); child < end; child++) {
+            if (visit(depth, trie.label(child), trie.frequency(child))) {
+                visitChildren(trie, child, depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Extends the path to a child, records the word ending there if it is the best so far,
+     * and returns whether any word below the child can still be close enough.
+     */
+    private boolean visit(int depth, char c, int frequency) {
+        path[depth] = c;
+        visited++;
+        int rowMinimum = fillRow(depth + 1);
+        if (rowMinimum > limit) {
+            return false;
+        }
+        int distance = rows[depth + 2][inputLength + 1];
+        if (distance <= limit && frequency > 0) {
+            found(depth + 1, distance, frequency);
+        }
+        return true;
+    }
+
+    /**
+     * Called for each word within the limit, in alphabetical order; the word is the first
+     * <code>length</code> characters of <code>path</code>.
+     */
+    void found(int length, int distance, int frequency) {
+        if (frequency > bestValues[distance]) {
+            //Walking the children in order means the first word at a value is the
+            //first alphabetically, so only a strictly higher frequency replaces it
+            System.arraycopy(path, 0, bestWords[distance], 0, length);
+            bestLengths[distance] = length;
+            bestValues[distance] = frequency;
+            //Words further away than one we already have can never be suggested
+            limit = distance;
+        }
+    }
+
+    /**
+     * Fills the table row for the path of length <code>i</code> and returns its smallest value.
+     */
+    private int fillRow(int i) {
+        int[] row = rows[i + 1];
+        int[] above = rows[i];
+        char c = path[i - 1];
+        row[0] = INFINITY;
+        row[1] = i;
+        int minimum = i;
+        int lastMatchColumn = 0;
+        for (int j = 1; j <= inputLength; j++) {
+            char inputChar = input.charAt(j - 1);
+            int cost = 1;
+            if (c == inputChar) {
+                cost = 0;
+            }
+            int best = Math.min(above[j] + cost, Math.min(row[j] + 1, above[j + 1] + 1));
+            int lastMatchRow = lastRow(i, inputChar);
+            if (lastMatchRow > 0 && lastMatchColumn > 0) {
+                best = Math.min(best, rows[lastMatchRow][lastMatchColumn]
+                        + (i - lastMatchRow - 1) + 1 + (j - lastMatchColumn - 1));
+            }
+            row[j + 1] = best;
+            if (cost == 0) {
+                lastMatchColumn = j;
+            }
+            if (best < minimum) {
+                minimum = best;
+            }
+        }
+        return minimum;
+    }
+
+    /**
+     * The last row (1 based) before row <code>i</code> whose path character is <code>c</code>, or 0.
+     */
+    private int lastRow(int i, char c) {
+        for (int k = i - 1; k >= 1; k--) {
+            if (path[k - 1] == c) {
+                return k;
+            }
+        }
+        return 0;
+    }
+}
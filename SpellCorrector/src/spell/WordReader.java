@@ -0,0 +1,242 @@
+package spell;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the words of a dictionary file without <code>Scanner</code> or regular expressions.
+ * Bytes are read through a FileChannel in large blocks and split on whitespace, the same
+ * characters <code>Character.isWhitespace</code> (and so <code>Scanner</code>) splits a UTF-8
+ * file on, including the Unicode spaces. A token is a word only if every byte is an ASCII
+ * letter (the same words <code>^[a-zA-Z]+$</code> accepts), and a String is only created for
+ * tokens that are accepted, already lower case.
+ * <p>
+ * In Unicode mode the file is decoded as UTF-8 and split on any whitespace character. A token
+ * is then a word if every character is a letter, a digit or an apostrophe, so accented and
+ * non-Latin words are kept. Characters outside the Basic Multilingual Plane are not letters
+ * to this reader.
+ */
+public class WordReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    //Only used in Unicode mode
+    private final Reader decoder;
+    private final char[] chars;
+    private int charPosition;
+    private int charLimit;
+    //The token being read, which may continue across buffer refills
+    private char[] token;
+    private int tokenLength;
+    private boolean tokenValid;
+    private boolean endOfFile;
+
+    public WordReader(File file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * @param unicode Whether to read UTF-8 words of any script rather than ASCII letters only
+     */
+    public WordReader(File file, boolean unicode) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip(); //Start out empty so the first read fills it
+        token = new char[32];
+        if (unicode) {
+            decoder = Channels.newReader(channel, StandardCharsets.UTF_8);
+            chars = new char[BUFFER_SIZE];
+        } else {
+            decoder = null;
+            chars = null;
+        }
+    }
+
+    /**
+     * Returns the next word, in lower case, or null once the file is finished.
+     *
+     * @throws IOException If the file cannot be read
+     */
+    public String next() throws IOException {
+        return next(0);
+    }
+
+    /**
+     * Returns the next word of exactly <code>length</code> letters (any length if 0), in lower
+     * case, or null once the file is finished.
+     *
+     * @throws IOException If the file cannot be read
+     */
+    public String next(int length) throws IOException {
+        while (decoder != null ? readUnicodeToken() : readToken()) {
+            if (tokenValid && (length == 0 || tokenLength == length)) {
+                return new String(token, 0, tokenLength);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the next whitespace separated token into <code>token</code>.
+     *
+     * @return false if there are no more tokens
+     */
+    private boolean readToken() throws IOException {
+        tokenLength = 0;
+        tokenValid = true;
+        boolean started = false;
+        byte[] bytes = buffer.array();
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                if (!fill()) {
+                    return started;
+                }
+            }
+            int position = buffer.position();
+            int limit = buffer.limit();
+            while (position < limit) {
+                byte b = bytes[position];
+                int whitespace = b >= 0 ? (isWhitespace(b) ? 1 : 0) : unicodeWhitespaceLength(bytes, position, limit);
+                if (whitespace < 0) {
+                    //The rest of the character is in the next block
+                    break;
+                }
+                if (whitespace > 0) {
+                    position += whitespace;
+                    //Skip whitespace before the token
+                    if (!started) {
+                        continue;
+                    }
+                    buffer.position(position);
+                    return true;
+                }
+                started = true;
+                if (b >= 'A' && b <= 'Z') {
+                    b += 'a' - 'A';
+                } else if (b < 'a' || b > 'z') {
+                    tokenValid = false;
+                }
+                //Once a token is rejected its letters are no longer needed
+                if (tokenValid) {
+                    append((char) b);
+                }
+                position++;
+            }
+            buffer.position(position);
+            if (position < limit) {
+                //Read the rest of the character; if the file ends first, it is not whitespace
+                fill();
+            }
+        }
+    }
+
+    /**
+     * Same as <code>readToken</code>, over decoded characters.
+     */
+    private boolean readUnicodeToken() throws IOException {
+        tokenLength = 0;
+        tokenValid = true;
+        boolean started = false;
+        while (true) {
+            if (charPosition == charLimit) {
+                charLimit = decoder.read(chars);
+                charPosition = 0;
+                if (charLimit < 0) {
+                    charLimit = 0;
+                    return started;
+                }
+            }
+            if (!started) {
+                while (charPosition < charLimit && Character.isWhitespace(chars[charPosition])) {
+                    charPosition++;
+                }
+                started = charPosition < charLimit;
+            }
+            while (charPosition < charLimit) {
+                char c = chars[charPosition++];
+                if (Character.isWhitespace(c)) {
+                    return true;
+                }
+                if (!Character.isLetterOrDigit(c) && c != '\'') {
+                    tokenValid = false;
+                }
+                if (tokenValid) {
+                    append(Character.toLowerCase(c));
+                }
+            }
+        }
+    }
+
+    private void append(char c) {
+        if (tokenLength == token.length) {
+            char[] bigger = new char[token.length * 2];
+            System.arraycopy(token, 0, bigger, 0, tokenLength);
+            token = bigger;
+        }
+        token[tokenLength++] = c;
+    }
+
+    /**
+     * Reads the next block, after any bytes of the last one not used yet
+     */
+    private boolean fill() throws IOException {
+        if (endOfFile) {
+            return false;
+        }
+        buffer.compact();
+        int read = channel.read(buffer);
+        while (read == 0) {
+            read = channel.read(buffer);
+        }
+        buffer.flip();
+        if (read < 0) {
+            endOfFile = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * The ASCII characters <code>Character.isWhitespace</code> accepts
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+    }
+
+    /**
+     * The length of the character starting at a non-ASCII byte if it is whitespace, 0 if not,
+     * or -1 if it does not fit before <code>limit</code> and the file has more to read
+     */
+    private int unicodeWhitespaceLength(byte[] bytes, int position, int limit) {
+        //Each whitespace character above ASCII (U+1680, U+2000 to U+205F and U+3000) takes
+        //three bytes, the first of them 0xE1 to 0xE3
+        int first = bytes[position] & 0xFF;
+        if (first < 0xE1 || first > 0xE3) {
+            return 0;
+        }
+        if (limit - position < 3) {
+            return endOfFile ? 0 : -1;
+        }
+        int second = bytes[position + 1] & 0xFF;
+        int third = bytes[position + 2] & 0xFF;
+        if ((second & 0xC0) != 0x80 || (third & 0xC0) != 0x80) {
+            return 0;
+        }
+        int codePoint = (first & 0x0F) << 12 | (second & 0x3F) << 6 | (third & 0x3F);
+        return Character.isWhitespace(codePoint) ? 3 : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}